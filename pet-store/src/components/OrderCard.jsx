@@ -25,7 +25,7 @@ const OrderCard = ({ order }) => {
   const { label, color } = getStatusLabel(order.status);
 
   // Подсчёт суммы
-  const total = order.items?.reduce(
+  const total = order.totalAmount ?? order.items?.reduce(
     (sum, item) => sum + item.price * item.quantity,
     0
   ) ?? 0;
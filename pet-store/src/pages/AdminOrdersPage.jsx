@@ -8,6 +8,9 @@ const AdminOrdersPage = () => {
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState(null);
   const [selectedOrder, setSelectedOrder] = useState(null);
+  // Сервер отдаёт заказы постранично, номер страницы начинается с нуля
+  const [page, setPage] = useState(0);
+  const [totalPages, setTotalPages] = useState(0);
 
   // Проверка роли
   useEffect(() => {
@@ -18,10 +21,10 @@ const AdminOrdersPage = () => {
       return;
     }
 
-    fetchOrders();
-  }, []);
+    fetchOrders(page);
+  }, [page]);
 
-  const fetchOrders = async () => {
+  const fetchOrders = async (pageNumber) => {
     const token = localStorage.getItem('authToken');
     if (!token) {
       setError('Вы не авторизованы');
@@ -29,8 +32,9 @@ const AdminOrdersPage = () => {
       return;
     }
 
+    setLoading(true);
     try {
-      const res = await fetch(`${API_URL}/admin/orders`, {
+      const res = await fetch(`${API_URL}/admin/orders?page=${pageNumber}`, {
         headers: {
           Authorization: `Bearer ${token}`
         }
@@ -39,7 +43,8 @@ const AdminOrdersPage = () => {
       if (!res.ok) throw new Error('Ошибка загрузки заказов');
 
       const data = await res.json();
-      setOrders(data);
+      setOrders(data.items);
+      setTotalPages(data.totalPages);
     } catch (err) {
       setError(err.message || 'Не удалось загрузить заказы');
     } finally {
@@ -129,8 +134,13 @@ const AdminOrdersPage = () => {
         throw new Error('Ошибка удаления заказа');
       }
 
-      setOrders(prev => prev.filter(order => order.id !== id));
       setSelectedOrder(null);
+      // Перечитываем страницу, чтобы на место удалённого заказа встал следующий
+      if (orders.length === 1 && page > 0) {
+        setPage(page - 1);
+      } else {
+        fetchOrders(page);
+      }
     } catch (err) {
       alert(err.message || 'Не удалось удалить заказ');
     }
@@ -260,6 +270,29 @@ const AdminOrdersPage = () => {
           </table>
         </div>
 
+        {/* Пагинация */}
+        {totalPages > 1 && (
+          <div className="flex justify-center items-center space-x-4 mt-6">
+            <button
+              onClick={() => setPage(page - 1)}
+              disabled={page === 0}
+              className="px-4 py-2 bg-gray-200 text-gray-700 rounded hover:bg-gray-300 transition disabled:opacity-50"
+            >
+              Назад
+            </button>
+            <span className="text-sm text-gray-600">
+              Страница {page + 1} из {totalPages}
+            </span>
+            <button
+              onClick={() => setPage(page + 1)}
+              disabled={page + 1 >= totalPages}
+              className="px-4 py-2 bg-gray-200 text-gray-700 rounded hover:bg-gray-300 transition disabled:opacity-50"
+            >
+              Вперёд
+            </button>
+          </div>
+        )}
+
         {/* Модалка с деталями заказа */}
         {selectedOrder && (
         <div className="fixed inset-0 bg-black bg-opacity-50 flex items-center justify-center z-50 p-4">
@@ -43,7 +43,7 @@ const AdminProductsPage = () => {
         if (!res.ok) throw new Error('Ошибка загрузки товаров');
 
         const data = await res.json();
-        setProducts(data);
+        setProducts(Array.isArray(data) ? data : data.items);
       } catch (err) {
         setError(err.message || 'Не удалось загрузить товары');
       } finally {
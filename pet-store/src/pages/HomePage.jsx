@@ -1,4 +1,4 @@
-import React, { useState, useEffect } from 'react';
+import React, { useState, useEffect, useRef } from 'react';
 import Header from '../components/Header';
 import Hero from '../components/Hero';
 import CategoryFilter from '../components/CategoryFilter';
@@ -37,6 +37,10 @@ const HomePage = () => {
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState(null);
   const [showAllProducts, setShowAllProducts] = useState(false);
+  // Каталог отдаётся страницами: следующая запрашивается по курсору из предыдущего ответа
+  const [nextCursor, setNextCursor] = useState(null);
+  const [loadingMore, setLoadingMore] = useState(false);
+  const listUrl = useRef(null);
   const debouncedSearchTerm = useDebounce(searchTerm, 300);
 
   // Загрузка категорий
@@ -78,6 +82,8 @@ const HomePage = () => {
           url = `${API_URL}/products`;
         }
 
+        listUrl.current = url;
+        setNextCursor(null);
         const res = await fetch(url);
         if (!res.ok) throw new Error(`Ошибка загрузки товаров: ${res.status}`);
 
@@ -87,7 +93,10 @@ const HomePage = () => {
         }
 
         const data = await res.json();
-        setProducts(data);
+        if (listUrl.current !== url) return;
+        // Поиск возвращает массив целиком, каталог и категории — страницу с курсором
+        setProducts(Array.isArray(data) ? data : data.items);
+        setNextCursor(Array.isArray(data) ? null : data.nextCursor);
       } catch (err) {
         console.error(err.message);
         setError('Не удалось загрузить товары');
@@ -100,6 +109,25 @@ const HomePage = () => {
     fetchProducts();
   }, [activeCategory, debouncedSearchTerm, showAllProducts]);
 
+  const loadMore = async () => {
+    const url = listUrl.current;
+    setLoadingMore(true);
+    try {
+      const res = await fetch(`${url}?cursor=${encodeURIComponent(nextCursor)}`);
+      if (!res.ok) throw new Error(`Ошибка загрузки товаров: ${res.status}`);
+      const data = await res.json();
+      // Пока страница грузилась, пользователь мог сменить категорию или поиск
+      if (listUrl.current !== url) return;
+      setProducts(prev => [...prev, ...data.items]);
+      setNextCursor(data.nextCursor);
+    } catch (err) {
+      console.error(err.message);
+      setError('Не удалось загрузить товары');
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
   return (
     <div className="bg-green-50 text-gray-900">
       <Header />
@@ -155,10 +183,24 @@ const HomePage = () => {
             ) : products.length === 0 ? (
               <p className="text-center text-gray-500">Нет товаров, соответствующих вашему запросу.</p>
             ) : (
-              <ProductGrid
-                products={products}
-                onProductClick={setSelectedProduct}
-              />
+              <>
+                <ProductGrid
+                  products={products}
+                  onProductClick={setSelectedProduct}
+                />
+
+                {nextCursor && (
+                  <div className="flex justify-center mt-8">
+                    <button
+                      onClick={loadMore}
+                      disabled={loadingMore}
+                      className="px-6 py-2 bg-green-600 text-white rounded-full hover:bg-green-700 transition disabled:opacity-50"
+                    >
+                      {loadingMore ? 'Загрузка...' : 'Показать ещё'}
+                    </button>
+                  </div>
+                )}
+              </>
             )}
           </>
         )}
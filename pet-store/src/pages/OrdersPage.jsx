@@ -7,6 +7,9 @@ const OrdersPage = () => {
   const [orders, setOrders] = useState([]);
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState(null);
+  // История отдаётся страницами, следующая запрашивается по курсору
+  const [nextCursor, setNextCursor] = useState(null);
+  const [loadingMore, setLoadingMore] = useState(false);
 
   useEffect(() => {
     const fetchOrders = async () => {
@@ -18,7 +21,7 @@ const OrdersPage = () => {
       }
 
       try {
-        const res = await fetch('/api/orders/history', {
+        const res = await fetch('/api/orders/history?details=true', {
           headers: {
             Authorization: `Bearer ${token}`
           }
@@ -27,7 +30,8 @@ const OrdersPage = () => {
         if (!res.ok) throw new Error('Ошибка загрузки заказов');
 
         const data = await res.json();
-        setOrders(data);
+        setOrders(data.items);
+        setNextCursor(data.nextCursor);
       } catch (err) {
         setError(err.message || 'Не удалось загрузить историю заказов');
       } finally {
@@ -38,6 +42,28 @@ const OrdersPage = () => {
     fetchOrders();
   }, []);
 
+  const loadMore = async () => {
+    const token = localStorage.getItem('authToken');
+    setLoadingMore(true);
+    try {
+      const res = await fetch(`/api/orders/history?details=true&cursor=${encodeURIComponent(nextCursor)}`, {
+        headers: {
+          Authorization: `Bearer ${token}`
+        }
+      });
+
+      if (!res.ok) throw new Error('Ошибка загрузки заказов');
+
+      const data = await res.json();
+      setOrders(prev => [...prev, ...data.items]);
+      setNextCursor(data.nextCursor);
+    } catch (err) {
+      setError(err.message || 'Не удалось загрузить историю заказов');
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
   return (
     <div className="min-h-screen bg-gray-50">
       <Header />
@@ -55,6 +81,18 @@ const OrdersPage = () => {
             {orders.map(order => (
               <OrderCard key={order.id} order={order} />
             ))}
+
+            {nextCursor && (
+              <div className="flex justify-center">
+                <button
+                  onClick={loadMore}
+                  disabled={loadingMore}
+                  className="px-6 py-2 bg-green-600 text-white rounded-full hover:bg-green-700 transition disabled:opacity-50"
+                >
+                  {loadingMore ? 'Загрузка...' : 'Показать ещё'}
+                </button>
+              </div>
+            )}
           </div>
         )}
       </main>
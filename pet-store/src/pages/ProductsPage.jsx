@@ -1,4 +1,4 @@
-import React, { useState, useEffect } from 'react';
+import React, { useState, useEffect, useRef } from 'react';
 import Header from '../components/Header';
 import Footer from '../components/Footer';
 import CategoryFilter from '../components/CategoryFilter';
@@ -30,6 +30,10 @@ const ProductsPage = () => {
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState(null);
   const [selectedProduct, setSelectedProduct] = useState(null);
+  // Каталог отдаётся страницами: следующая запрашивается по курсору из предыдущего ответа
+  const [nextCursor, setNextCursor] = useState(null);
+  const [loadingMore, setLoadingMore] = useState(false);
+  const listUrl = useRef(null);
 
   const debouncedSearchTerm = useDebounce(searchTerm, 500);
 
@@ -70,6 +74,8 @@ const ProductsPage = () => {
           url = `${API_URL}/products/search?name=${encodeURIComponent(debouncedSearchTerm)}`;
         }
 
+        listUrl.current = url;
+        setNextCursor(null);
         const res = await fetch(url);
         if (!res.ok) throw new Error(`Ошибка загрузки товаров: ${res.status}`);
 
@@ -79,7 +85,10 @@ const ProductsPage = () => {
         }
 
         const data = await res.json();
-        setProducts(data);
+        if (listUrl.current !== url) return;
+        // Поиск возвращает массив целиком, каталог и категории — страницу с курсором
+        setProducts(Array.isArray(data) ? data : data.items);
+        setNextCursor(Array.isArray(data) ? null : data.nextCursor);
       } catch (err) {
         console.error(err.message);
         setError('Не удалось загрузить товары');
@@ -92,6 +101,25 @@ const ProductsPage = () => {
     fetchProducts();
   }, [activeCategory, debouncedSearchTerm]);
 
+  const loadMore = async () => {
+    const url = listUrl.current;
+    setLoadingMore(true);
+    try {
+      const res = await fetch(`${url}?cursor=${encodeURIComponent(nextCursor)}`);
+      if (!res.ok) throw new Error(`Ошибка загрузки товаров: ${res.status}`);
+      const data = await res.json();
+      // Пока страница грузилась, пользователь мог сменить категорию или поиск
+      if (listUrl.current !== url) return;
+      setProducts(prev => [...prev, ...data.items]);
+      setNextCursor(data.nextCursor);
+    } catch (err) {
+      console.error(err.message);
+      setError('Не удалось загрузить товары');
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
   const handleProductClick = (product) => {
     setSelectedProduct(product);
   };
@@ -170,6 +198,18 @@ const ProductsPage = () => {
                   onProductClick={handleProductClick}
                 />
 
+                {nextCursor && (
+                  <div className="flex justify-center mt-8">
+                    <button
+                      onClick={loadMore}
+                      disabled={loadingMore}
+                      className="px-6 py-2 bg-green-600 text-white rounded-full hover:bg-green-700 transition disabled:opacity-50"
+                    >
+                      {loadingMore ? 'Загрузка...' : 'Показать ещё'}
+                    </button>
+                  </div>
+                )}
+
                 {/* Модалка с деталями товара */}
                 {selectedProduct && (
                   <ModalProductDetails
@@ -10,6 +10,9 @@ const ProfilePage = () => {
   const [editing, setEditing] = useState(false);
   const [formData, setFormData] = useState({});
   const [orders, setOrders] = useState([]);
+  // История отдаётся страницами, следующая запрашивается по курсору
+  const [nextCursor, setNextCursor] = useState(null);
+  const [loadingMore, setLoadingMore] = useState(false);
   const [error, setError] = useState(null);
 
   // Состояние для тоста
@@ -77,7 +80,8 @@ const ProfilePage = () => {
         }
 
         const data = await ordersRes.json();
-        setOrders(data);
+        setOrders(data.items || []);
+        setNextCursor(data.nextCursor || null);
       } catch (err) {
         setError(err.message || 'Не удалось загрузить данные');
       } finally {
@@ -88,6 +92,27 @@ const ProfilePage = () => {
     fetchData();
   }, [token]);
 
+  const loadMoreOrders = async () => {
+    setLoadingMore(true);
+    try {
+      const res = await fetch(`${API_URL}/orders/history?cursor=${encodeURIComponent(nextCursor)}`, {
+        headers: {
+          Authorization: `Bearer ${token}`
+        }
+      });
+
+      if (!res.ok) throw new Error('Не удалось загрузить историю заказов');
+
+      const data = await res.json();
+      setOrders(prev => [...prev, ...data.items]);
+      setNextCursor(data.nextCursor);
+    } catch (err) {
+      showToastMessage(err.message, true);
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
   const handleChange = (e) => {
     const { name, value } = e.target;
     setFormData(prev => ({ ...prev, [name]: value }));
@@ -277,6 +302,18 @@ const ProfilePage = () => {
               getStatusLabel={getStatusLabel}
               emptyMessage="У вас пока нет заказов"
             />
+
+            {nextCursor && (
+              <div className="flex justify-center mt-4">
+                <button
+                  onClick={loadMoreOrders}
+                  disabled={loadingMore}
+                  className="px-4 py-2 bg-green-600 text-white rounded hover:bg-green-700 transition disabled:opacity-50"
+                >
+                  {loadingMore ? 'Загрузка...' : 'Показать ещё'}
+                </button>
+              </div>
+            )}
           </div>
         </div>
       </main>
@@ -3,11 +3,11 @@ package com.example.onlinepetshop;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
-import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication(scanBasePackages = "com.example.onlinepetshop")
 @EnableJpaRepositories
-@EnableWebSocket
+@EnableScheduling
 public class OnlinePetShopApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,107 @@
+package com.example.onlinepetshop.config;
+
+import com.example.onlinepetshop.security.JwtChannelInterceptor;
+import com.example.onlinepetshop.service.order.OrderNotifier;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.config.ChannelRegistration;
+import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.messaging.access.intercept.AuthorizationChannelInterceptor;
+import org.springframework.security.messaging.access.intercept.MessageMatcherDelegatingAuthorizationManager;
+import org.springframework.security.messaging.context.SecurityContextChannelInterceptor;
+import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
+import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
+import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+
+@Configuration
+@EnableWebSocketMessageBroker
+@RequiredArgsConstructor
+public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
+
+    private static final long HEARTBEAT_MS = 10_000;
+
+    private final JwtChannelInterceptor jwtChannelInterceptor;
+
+    @Value("${websocket.broker.pool-size:1}")
+    private int brokerPoolSize;
+
+    @Value("${websocket.outbound.pool-size:16}")
+    private int outboundPoolSize;
+
+    @Value("${websocket.send-time-limit-ms:10000}")
+    private int sendTimeLimit;
+
+    @Value("${websocket.send-buffer-size-limit:524288}")
+    private int sendBufferSizeLimit;
+
+    private TaskScheduler messageBrokerTaskScheduler;
+
+    // Пульс брокера идёт на планировщике, который объявляет сама конфигурация STOMP: его жизненным циклом управляет
+    // контекст. @Lazy разрывает цикл — бин создаётся этим же классом конфигурации
+    @Autowired
+    public void setMessageBrokerTaskScheduler(@Lazy @Qualifier("messageBrokerTaskScheduler") TaskScheduler taskScheduler) {
+        this.messageBrokerTaskScheduler = taskScheduler;
+    }
+
+    @Override
+    public void registerStompEndpoints(StompEndpointRegistry registry) {
+        registry.addEndpoint("/ws").setAllowedOriginPatterns("*");
+    }
+
+    @Override
+    public void configureMessageBroker(MessageBrokerRegistry registry) {
+        registry.enableSimpleBroker("/topic", "/queue")
+                .setHeartbeatValue(new long[]{HEARTBEAT_MS, HEARTBEAT_MS})
+                .setTaskScheduler(messageBrokerTaskScheduler);
+        registry.setApplicationDestinationPrefixes("/app");
+        registry.setUserDestinationPrefix("/user");
+        registry.setPreservePublishOrder(true);
+        // Пишущий поток только кладёт сообщение в канал брокера, подбор подписчиков идёт в отдельном пуле;
+        // при одном потоке события одного заказа доходят в порядке публикации
+        registry.configureBrokerChannel().taskExecutor()
+                .corePoolSize(brokerPoolSize)
+                .maxPoolSize(brokerPoolSize);
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(
+                jwtChannelInterceptor,
+                new SecurityContextChannelInterceptor(),
+                new AuthorizationChannelInterceptor(authorizationManager()));
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor()
+                .corePoolSize(outboundPoolSize)
+                .maxPoolSize(outboundPoolSize);
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // Медленный клиент копит сообщения в своём буфере и отключается по лимиту, не задерживая остальных
+        registration.setSendTimeLimit(sendTimeLimit)
+                .setSendBufferSizeLimit(sendBufferSizeLimit);
+    }
+
+    private AuthorizationManager<Message<?>> authorizationManager() {
+        return MessageMatcherDelegatingAuthorizationManager.builder()
+                .simpTypeMatchers(SimpMessageType.CONNECT).authenticated()
+                .simpTypeMatchers(SimpMessageType.UNSUBSCRIBE, SimpMessageType.DISCONNECT, SimpMessageType.HEARTBEAT)
+                .permitAll()
+                .simpSubscribeDestMatchers(OrderNotifier.ADMIN_TOPIC).hasRole("ADMIN")
+                .simpSubscribeDestMatchers("/user" + OrderNotifier.USER_QUEUE).authenticated()
+                .anyMessage().denyAll()
+                .build();
+    }
+}
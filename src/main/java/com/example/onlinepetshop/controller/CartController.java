@@ -1,6 +1,7 @@
 package com.example.onlinepetshop.controller;
 
 import com.example.onlinepetshop.dto.cart.AddToCartRequest;
+import com.example.onlinepetshop.dto.cart.CartBatchRequest;
 import com.example.onlinepetshop.dto.cart.CartResponse;
 import com.example.onlinepetshop.service.cart.CartService;
 import lombok.RequiredArgsConstructor;
@@ -29,6 +30,13 @@ public class CartController {
         return ResponseEntity.ok().build();
     }
 
+    // Несколько добавлений, изменений количества и удалений за один запрос; возвращает итоговую корзину
+    @PostMapping("/batch")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    public CartResponse applyBatch(@RequestBody CartBatchRequest request, Authentication auth) {
+        return cartService.applyBatch(auth.getName(), request);
+    }
+
     @PutMapping
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
     public ResponseEntity<Void> updateQuantity(@RequestBody AddToCartRequest request, Authentication auth) {
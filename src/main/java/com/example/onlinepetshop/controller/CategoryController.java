@@ -1,23 +1,27 @@
 package com.example.onlinepetshop.controller;
 
-import com.example.onlinepetshop.entity.Category;
-import com.example.onlinepetshop.service.category.CategoryService;
+import com.example.onlinepetshop.service.catalog.CatalogService;
+import com.example.onlinepetshop.service.catalog.CatalogVersion;
+import com.fasterxml.jackson.databind.util.RawValue;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
-
-import java.util.List;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/api/categories")
 @RequiredArgsConstructor
 public class CategoryController {
 
-    private final CategoryService categoryService;
+    private final CatalogService catalogService;
+    private final CatalogVersion catalogVersion;
 
     @GetMapping
-    public List<Category> getAll() {
-        return categoryService.getAll();
+    public RawValue getAll(WebRequest request) {
+        if (request.checkNotModified(catalogVersion.etag(), catalogVersion.lastModified())) {
+            return null;
+        }
+        return catalogService.getCategories();
     }
 }
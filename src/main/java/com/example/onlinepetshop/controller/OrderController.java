@@ -1,16 +1,24 @@
 package com.example.onlinepetshop.controller;
 
+import com.example.onlinepetshop.dto.CursorPageResponse;
+import com.example.onlinepetshop.dto.order.CheckoutRequest;
 import com.example.onlinepetshop.dto.order.CreateOrderRequest;
+import com.example.onlinepetshop.dto.order.OrderIntakeStatus;
 import com.example.onlinepetshop.dto.order.OrderResponse;
 import com.example.onlinepetshop.entity.enums.OrderStatus;
+import com.example.onlinepetshop.service.order.OrderIdempotencyStore;
+import com.example.onlinepetshop.service.order.OrderIntakeRejectedException;
+import com.example.onlinepetshop.service.order.OrderIntakeService;
 import com.example.onlinepetshop.service.order.OrderService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
+import java.net.URI;
 
 @RestController
 @RequestMapping("/api/orders")
@@ -18,11 +26,46 @@ import java.util.List;
 public class OrderController {
 
     private final OrderService orderService;
+    private final OrderIdempotencyStore idempotencyStore;
+    private final OrderIntakeService intakeService;
 
     @PostMapping
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<OrderResponse> placeOrder(@RequestBody CreateOrderRequest request, Authentication auth) {
-        return ResponseEntity.ok(orderService.placeOrder(auth.getName(), request));
+    public ResponseEntity<OrderResponse> placeOrder(
+            @RequestBody CreateOrderRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            Authentication auth) {
+        return ResponseEntity.ok(idempotencyStore.execute(auth.getName(), idempotencyKey, request,
+                () -> orderService.placeOrder(auth.getName(), request)));
+    }
+
+    // Заказ из содержимого корзины одной транзакцией; корзина при этом опустошается
+    @PostMapping("/checkout")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<OrderResponse> checkout(@RequestBody CheckoutRequest request, Authentication auth) {
+        return ResponseEntity.ok(orderService.checkout(auth.getName(), request));
+    }
+
+    @PostMapping("/async")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<OrderIntakeStatus> placeOrderAsync(@RequestBody CreateOrderRequest request, Authentication auth) {
+        OrderIntakeStatus status = intakeService.submit(auth.getName(), request);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/orders/async/" + status.orderId()))
+                .body(status);
+    }
+
+    @GetMapping("/async/{orderId}")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<OrderIntakeStatus> getIntakeStatus(@PathVariable Long orderId, Authentication auth) {
+        return ResponseEntity.ok(intakeService.getStatus(auth.getName(), orderId));
+    }
+
+    @ExceptionHandler(OrderIntakeRejectedException.class)
+    public ResponseEntity<String> onIntakeRejected(OrderIntakeRejectedException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(e.getMessage());
     }
 
     @GetMapping("/{orderId}")
@@ -38,10 +81,14 @@ public class OrderController {
         return ResponseEntity.ok().build();
     }
 
-    @GetMapping("/history")
+    @GetMapping({"", "/history"})
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<List<OrderResponse>> getOrderHistory(Authentication auth) {
-        return ResponseEntity.ok(orderService.getUserOrders(auth));
+    public ResponseEntity<CursorPageResponse<OrderResponse>> getOrderHistory(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(defaultValue = "false") boolean details,
+            Authentication auth) {
+        return ResponseEntity.ok(orderService.getUserOrders(auth.getName(), cursor, limit, details));
     }
 }
 
@@ -1,9 +1,15 @@
 package com.example.onlinepetshop.controller;
 
-import com.example.onlinepetshop.entity.Product;
-import com.example.onlinepetshop.service.product.ProductService;
+import com.example.onlinepetshop.dto.CursorPageResponse;
+import com.example.onlinepetshop.dto.product.FacetedProductResponse;
+import com.example.onlinepetshop.dto.product.ProductFacetQuery;
+import com.example.onlinepetshop.dto.product.ProductSuggestion;
+import com.example.onlinepetshop.service.catalog.CatalogService;
+import com.example.onlinepetshop.service.catalog.Versioned;
+import com.fasterxml.jackson.databind.util.RawValue;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -12,26 +18,56 @@ import java.util.List;
 @RequiredArgsConstructor
 public class ProductController {
 
-    private final ProductService productService;
+    private final CatalogService catalogService;
 
     @GetMapping
-    public List<Product> getAll() {
-        return productService.getAll();
+    public CursorPageResponse<RawValue> getAll(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "24") int limit,
+            @RequestParam(defaultValue = "id") String sort,
+            @RequestParam(defaultValue = "asc") String direction,
+            WebRequest request) {
+        return notModified(catalogService.getProducts(null, cursor, limit, sort, direction), request);
     }
 
     @GetMapping("/search")
-    public List<Product> searchByName(@RequestParam String name) {
-        return productService.searchByName(name);
+    public List<RawValue> searchByName(
+            @RequestParam String name,
+            @RequestParam(defaultValue = "false") boolean fuzzy,
+            @RequestParam(defaultValue = "50") int limit) {
+        return catalogService.searchByName(name, fuzzy, limit);
+    }
+
+    @GetMapping("/suggest")
+    public List<ProductSuggestion> suggest(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "8") int limit) {
+        return catalogService.suggest(prefix, limit);
+    }
+
+    @GetMapping("/facets")
+    public FacetedProductResponse facetedSearch(ProductFacetQuery query) {
+        return catalogService.facetedSearch(query);
     }
 
     @GetMapping("/category/{categoryId}")
-    public List<Product> getByCategory(@PathVariable Long categoryId) {
-        return productService.getByCategory(categoryId);
+    public CursorPageResponse<RawValue> getByCategory(
+            @PathVariable Long categoryId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "24") int limit,
+            @RequestParam(defaultValue = "id") String sort,
+            @RequestParam(defaultValue = "asc") String direction,
+            WebRequest request) {
+        return notModified(catalogService.getProducts(categoryId, cursor, limit, sort, direction), request);
     }
 
     @GetMapping("/{id}")
-    public Product getById(@PathVariable Long id) {
-        return productService.getById(id);
+    public RawValue getById(@PathVariable Long id, WebRequest request) {
+        return notModified(catalogService.getProduct(id), request);
     }
-}
 
+    // Сверяется только ETag: остатки меняются без подъёма версии каталога, и Last-Modified по ней отдал бы устаревший ответ
+    private static <T> T notModified(Versioned<T> response, WebRequest request) {
+        return request.checkNotModified(response.etag()) ? null : response.body();
+    }
+}
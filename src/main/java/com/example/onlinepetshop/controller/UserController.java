@@ -1,8 +1,10 @@
 package com.example.onlinepetshop.controller;
 
+import com.example.onlinepetshop.dto.CursorPageResponse;
 import com.example.onlinepetshop.dto.order.OrderResponse;
 import com.example.onlinepetshop.dto.UpdateProfileRequest;
 import com.example.onlinepetshop.dto.UserResponse;
+import com.example.onlinepetshop.service.order.OrderService;
 import com.example.onlinepetshop.service.user.UserService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -10,14 +12,13 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/api/user")
 @RequiredArgsConstructor
 public class UserController {
 
     private final UserService userService;
+    private final OrderService orderService;
 
     @GetMapping("/me")
     @PreAuthorize("hasRole('USER')")
@@ -27,8 +28,12 @@ public class UserController {
 
     @GetMapping("/orders")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<List<OrderResponse>> getUserOrders(Authentication authentication) {
-        return ResponseEntity.ok(userService.getUserOrders(authentication));
+    public ResponseEntity<CursorPageResponse<OrderResponse>> getUserOrders(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(defaultValue = "false") boolean details,
+            Authentication authentication) {
+        return ResponseEntity.ok(orderService.getUserOrders(authentication.getName(), cursor, limit, details));
     }
 
     @PutMapping("/me")
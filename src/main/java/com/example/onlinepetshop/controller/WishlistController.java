@@ -1,7 +1,7 @@
 package com.example.onlinepetshop.controller;
 
+import com.example.onlinepetshop.dto.product.ProductResponse;
 import com.example.onlinepetshop.dto.wishlist.CheckWishlistResponse;
-import com.example.onlinepetshop.entity.Product;
 import com.example.onlinepetshop.service.wishlist.WishlistService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -17,8 +17,8 @@ public class WishlistController {
     private final WishlistService wishlistService;
 
     @GetMapping
-    public ResponseEntity<List<Product>> getWishlist() {
-        List<Product> products = wishlistService.getProductsInWishlist();
+    public ResponseEntity<List<ProductResponse>> getWishlist() {
+        List<ProductResponse> products = wishlistService.getProductsInWishlist();
         return ResponseEntity.ok(products);
     }
 
@@ -0,0 +1,35 @@
+package com.example.onlinepetshop.controller.admin;
+
+import com.example.onlinepetshop.dto.analytics.RollupRebuildReport;
+import com.example.onlinepetshop.dto.analytics.SalesReport;
+import com.example.onlinepetshop.service.analytics.SalesAnalyticsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api/admin/analytics")
+@RequiredArgsConstructor
+public class AdminAnalyticsController {
+
+    private final SalesAnalyticsService analyticsService;
+
+    @GetMapping("/sales")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<SalesReport> getSalesReport(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "10") int top) {
+        return ResponseEntity.ok(analyticsService.getSalesReport(from, to, top));
+    }
+
+    @PostMapping("/sales/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<RollupRebuildReport> rebuild() {
+        return ResponseEntity.ok(analyticsService.rebuild());
+    }
+}
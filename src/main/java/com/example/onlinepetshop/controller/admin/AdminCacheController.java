@@ -0,0 +1,29 @@
+package com.example.onlinepetshop.controller.admin;
+
+import com.example.onlinepetshop.dto.cache.CacheStatsResponse;
+import com.example.onlinepetshop.service.cache.CacheStatsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin/cache")
+@RequiredArgsConstructor
+public class AdminCacheController {
+
+    private final CacheStatsService cacheStatsService;
+
+    @GetMapping("/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CacheStatsResponse> getStats() {
+        return ResponseEntity.ok(cacheStatsService.getStats());
+    }
+
+    @DeleteMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Void> clear() {
+        cacheStatsService.clear();
+        return ResponseEntity.noContent().build();
+    }
+}
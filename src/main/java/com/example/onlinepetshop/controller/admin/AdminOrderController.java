@@ -1,26 +1,65 @@
 package com.example.onlinepetshop.controller.admin;
 
+import com.example.onlinepetshop.dto.PageResponse;
+import com.example.onlinepetshop.dto.order.AdminOrderFilter;
+import com.example.onlinepetshop.dto.order.BulkStatusUpdateRequest;
+import com.example.onlinepetshop.dto.order.BulkStatusUpdateResponse;
+import com.example.onlinepetshop.dto.order.OrderArchiveReport;
+import com.example.onlinepetshop.dto.order.OrderIntakeStats;
 import com.example.onlinepetshop.dto.order.OrderResponse;
+import com.example.onlinepetshop.dto.order.ReadModelReport;
 import com.example.onlinepetshop.entity.enums.OrderStatus;
+import com.example.onlinepetshop.service.order.OrderArchiveService;
+import com.example.onlinepetshop.service.order.OrderIntakeService;
 import com.example.onlinepetshop.service.order.OrderService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/api/admin/orders")
 @RequiredArgsConstructor
 public class AdminOrderController {
 
     private final OrderService orderService;
+    private final OrderIntakeService intakeService;
+    private final OrderArchiveService archiveService;
 
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<OrderResponse>> getAllOrders() {
-        return ResponseEntity.ok(orderService.getAllOrders());
+    public ResponseEntity<PageResponse<OrderResponse>> searchOrders(AdminOrderFilter filter) {
+        return ResponseEntity.ok(orderService.searchOrders(filter));
+    }
+
+    @GetMapping("/intake")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<OrderIntakeStats> getIntakeStats() {
+        return ResponseEntity.ok(intakeService.getStats());
+    }
+
+    @PostMapping("/read-model/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ReadModelReport> rebuildReadModel() {
+        return ResponseEntity.ok(orderService.rebuildReadModel());
+    }
+
+    @PostMapping("/read-model/repair")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ReadModelReport> repairReadModel() {
+        return ResponseEntity.ok(orderService.checkReadModel(true));
+    }
+
+    @GetMapping("/read-model/check")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ReadModelReport> checkReadModel() {
+        return ResponseEntity.ok(orderService.checkReadModel(false));
+    }
+
+    @PostMapping("/archive")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<OrderArchiveReport> archiveOrders() {
+        return ResponseEntity.ok(archiveService.archive());
     }
 
     @PutMapping("/{id}/status")
@@ -30,6 +69,12 @@ public class AdminOrderController {
         return ResponseEntity.ok().build();
     }
 
+    @PostMapping("/status")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BulkStatusUpdateResponse> updateOrderStatuses(@RequestBody BulkStatusUpdateRequest request) {
+        return ResponseEntity.ok(orderService.updateOrderStatuses(request));
+    }
+
     @GetMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<OrderResponse> getOrderById(@PathVariable Long id) {
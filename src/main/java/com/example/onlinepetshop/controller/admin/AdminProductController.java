@@ -1,15 +1,25 @@
 package com.example.onlinepetshop.controller.admin;
 
+import com.example.onlinepetshop.dto.CursorPageResponse;
+import com.example.onlinepetshop.dto.product.ProductImportReport;
 import com.example.onlinepetshop.dto.product.ProductRequest;
 import com.example.onlinepetshop.entity.Product;
 import com.example.onlinepetshop.service.product.ProductService;
+import com.example.onlinepetshop.service.product.feed.ProductExportService;
+import com.example.onlinepetshop.service.product.feed.ProductFeedFormat;
+import com.example.onlinepetshop.service.product.feed.ProductImportService;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
 
 @RestController
 @RequestMapping("/api/admin/products")
@@ -17,6 +27,8 @@ import java.util.List;
 public class AdminProductController {
 
     private final ProductService productService;
+    private final ProductImportService productImportService;
+    private final ProductExportService productExportService;
 
     @PostMapping
     @PreAuthorize("hasRole('ADMIN')")
@@ -25,10 +37,37 @@ public class AdminProductController {
         return ResponseEntity.status(HttpStatus.CREATED).body(created);
     }
 
+    // Тело запроса читается потоком: CSV с заголовком или NDJSON, по строке на товар
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ProductImportReport> importFeed(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body) {
+        return ResponseEntity.ok(productImportService.importFeed(body, ProductFeedFormat.fromContentType(contentType)));
+    }
+
+    // Выгрузка пишется в ответ по мере чтения курсора, без накопления в памяти
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public void exportFeed(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime modifiedSince,
+            HttpServletResponse response) throws IOException {
+        ProductFeedFormat feedFormat = ProductFeedFormat.from(format);
+        response.setContentType(feedFormat.mediaType().toString());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"products." + feedFormat.name().toLowerCase() + "\"");
+        productExportService.export(feedFormat, modifiedSince, response.getOutputStream());
+    }
+
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<Product>> getAll() {
-        return ResponseEntity.ok(productService.getAll());
+    public ResponseEntity<CursorPageResponse<Product>> getAll(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(defaultValue = "id") String sort,
+            @RequestParam(defaultValue = "asc") String direction) {
+        return ResponseEntity.ok(productService.getAll(cursor, limit, sort, direction));
     }
 
     @GetMapping("/{id}")
@@ -0,0 +1,6 @@
+package com.example.onlinepetshop.dto.analytics;
+
+import java.math.BigDecimal;
+
+public record CategorySales(Long categoryId, String name, Long units, BigDecimal revenue) {
+}
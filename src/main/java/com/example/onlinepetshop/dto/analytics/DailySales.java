@@ -0,0 +1,7 @@
+package com.example.onlinepetshop.dto.analytics;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public record DailySales(LocalDate date, long orders, long units, BigDecimal revenue) {
+}
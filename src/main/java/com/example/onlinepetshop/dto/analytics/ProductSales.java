@@ -0,0 +1,6 @@
+package com.example.onlinepetshop.dto.analytics;
+
+import java.math.BigDecimal;
+
+public record ProductSales(Long productId, String name, Long units, BigDecimal revenue) {
+}
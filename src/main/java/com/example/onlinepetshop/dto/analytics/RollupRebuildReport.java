@@ -0,0 +1,4 @@
+package com.example.onlinepetshop.dto.analytics;
+
+public record RollupRebuildReport(long orders, long lines, long elapsedMillis) {
+}
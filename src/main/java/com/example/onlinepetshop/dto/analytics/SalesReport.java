@@ -0,0 +1,26 @@
+package com.example.onlinepetshop.dto.analytics;
+
+import com.example.onlinepetshop.entity.enums.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesReport {
+    private LocalDate from;
+    private LocalDate to;
+    private long orders;
+    private long units;
+    private BigDecimal revenue;
+    private List<DailySales> daily;
+    private Map<OrderStatus, Long> ordersByStatus;
+    private List<ProductSales> topProducts;
+    private List<CategorySales> categories;
+}
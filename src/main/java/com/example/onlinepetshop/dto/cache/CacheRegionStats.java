@@ -0,0 +1,4 @@
+package com.example.onlinepetshop.dto.cache;
+
+public record CacheRegionStats(String region, long hits, long misses, long puts) {
+}
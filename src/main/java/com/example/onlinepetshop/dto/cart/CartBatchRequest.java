@@ -0,0 +1,11 @@
+package com.example.onlinepetshop.dto.cart;
+
+import lombok.Data;
+
+import java.util.List;
+
+// Операции применяются по порядку и атомарно: при ошибке в любой из них корзина не меняется
+@Data
+public class CartBatchRequest {
+    private List<CartOperation> operations;
+}
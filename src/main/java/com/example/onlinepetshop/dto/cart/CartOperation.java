@@ -0,0 +1,15 @@
+package com.example.onlinepetshop.dto.cart;
+
+import lombok.Data;
+
+// ADD прибавляет quantity к строке (создаёт её при необходимости), SET задаёт количество, REMOVE удаляет строку
+@Data
+public class CartOperation {
+    private Type type;
+    private Long productId;
+    private int quantity;
+
+    public enum Type {
+        ADD, SET, REMOVE
+    }
+}
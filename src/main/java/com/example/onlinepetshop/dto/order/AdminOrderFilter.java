@@ -0,0 +1,21 @@
+package com.example.onlinepetshop.dto.order;
+
+import com.example.onlinepetshop.entity.enums.OrderStatus;
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+public class AdminOrderFilter {
+    private OrderStatus status;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime from;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime to;
+    private String email;
+    private BigDecimal minTotal;
+    private int page = 0;
+    private int size = 50;
+}
@@ -0,0 +1,14 @@
+package com.example.onlinepetshop.dto.order;
+
+import com.example.onlinepetshop.entity.enums.OrderStatus;
+import lombok.Data;
+
+import java.util.List;
+
+// Заказы задаются либо списком id, либо фильтром (страница и размер фильтра не учитываются)
+@Data
+public class BulkStatusUpdateRequest {
+    private OrderStatus status;
+    private List<Long> orderIds;
+    private AdminOrderFilter filter;
+}
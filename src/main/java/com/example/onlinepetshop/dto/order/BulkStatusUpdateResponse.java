@@ -0,0 +1,9 @@
+package com.example.onlinepetshop.dto.order;
+
+import com.example.onlinepetshop.entity.enums.OrderStatus;
+
+import java.util.List;
+
+public record BulkStatusUpdateResponse(OrderStatus status, int requested, int updated, int unchanged, int rejected,
+                                       List<BulkStatusUpdateResult> results) {
+}
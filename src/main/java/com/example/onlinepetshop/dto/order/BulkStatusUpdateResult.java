@@ -0,0 +1,13 @@
+package com.example.onlinepetshop.dto.order;
+
+import com.example.onlinepetshop.entity.enums.OrderStatus;
+
+public record BulkStatusUpdateResult(Long orderId, Outcome outcome, OrderStatus previousStatus, String error) {
+
+    public enum Outcome {
+        UPDATED,
+        UNCHANGED,
+        REJECTED,
+        NOT_FOUND
+    }
+}
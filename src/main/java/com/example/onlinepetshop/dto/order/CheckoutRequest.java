@@ -0,0 +1,11 @@
+package com.example.onlinepetshop.dto.order;
+
+import lombok.Data;
+
+// Позиции заказа берутся из корзины пользователя, клиент передаёт только данные доставки
+@Data
+public class CheckoutRequest {
+    private String phone;
+    private String address;
+    private String comment;
+}
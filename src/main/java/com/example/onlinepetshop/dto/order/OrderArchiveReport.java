@@ -0,0 +1,6 @@
+package com.example.onlinepetshop.dto.order;
+
+import java.time.LocalDateTime;
+
+public record OrderArchiveReport(LocalDateTime cutoff, long orders, long items, int batches, long elapsedMillis) {
+}
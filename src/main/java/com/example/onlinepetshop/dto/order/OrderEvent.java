@@ -0,0 +1,23 @@
+package com.example.onlinepetshop.dto.order;
+
+import com.example.onlinepetshop.entity.enums.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public record OrderEvent(Type type, Long orderId, String userEmail, OrderStatus status, BigDecimal total,
+                         LocalDateTime occurredAt) {
+
+    public enum Type {
+        CREATED,
+        STATUS_CHANGED
+    }
+
+    public static OrderEvent created(Long orderId, String userEmail, OrderStatus status, BigDecimal total) {
+        return new OrderEvent(Type.CREATED, orderId, userEmail, status, total, LocalDateTime.now());
+    }
+
+    public static OrderEvent statusChanged(Long orderId, String userEmail, OrderStatus status, BigDecimal total) {
+        return new OrderEvent(Type.STATUS_CHANGED, orderId, userEmail, status, total, LocalDateTime.now());
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.onlinepetshop.dto.order;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderIntakeStats {
+    private int queueDepth;
+    private int queueCapacity;
+    private int workers;
+    private long accepted;
+    private long rejected;
+    private long processed;
+    private long failed;
+    private long oldestQueuedMillis;
+    private long averageLagMillis;
+    private long maxLagMillis;
+}
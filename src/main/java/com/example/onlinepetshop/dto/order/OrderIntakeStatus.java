@@ -0,0 +1,6 @@
+package com.example.onlinepetshop.dto.order;
+
+import com.example.onlinepetshop.entity.enums.OrderStatus;
+
+public record OrderIntakeStatus(Long orderId, OrderStatus status, String error) {
+}
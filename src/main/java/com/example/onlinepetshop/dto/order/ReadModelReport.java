@@ -0,0 +1,7 @@
+package com.example.onlinepetshop.dto.order;
+
+import java.util.List;
+
+public record ReadModelReport(long checked, long missing, long stale, long orphaned, long written,
+                              List<Long> mismatchedIds) {
+}
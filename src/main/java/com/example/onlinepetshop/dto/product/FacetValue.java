@@ -0,0 +1,3 @@
+package com.example.onlinepetshop.dto.product;
+
+public record FacetValue(String key, String label, long count) {}
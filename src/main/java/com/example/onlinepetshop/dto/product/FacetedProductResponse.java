@@ -0,0 +1,19 @@
+package com.example.onlinepetshop.dto.product;
+
+import com.fasterxml.jackson.databind.util.RawValue;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetedProductResponse {
+    private List<RawValue> items;
+    private long total;
+    private List<FacetValue> categories;
+    private List<FacetValue> priceRanges;
+    private List<FacetValue> availability;
+}
@@ -0,0 +1,18 @@
+package com.example.onlinepetshop.dto.product;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+public class ProductFacetQuery {
+    private String q;
+    private boolean fuzzy;
+    private List<Long> categoryId;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private Boolean inStock;
+    private int offset = 0;
+    private int limit = 24;
+}
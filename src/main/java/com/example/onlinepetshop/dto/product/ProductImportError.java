@@ -0,0 +1,4 @@
+package com.example.onlinepetshop.dto.product;
+
+public record ProductImportError(long line, String sku, String message) {
+}
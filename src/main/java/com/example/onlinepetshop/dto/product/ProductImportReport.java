@@ -0,0 +1,17 @@
+package com.example.onlinepetshop.dto.product;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class ProductImportReport {
+    private long processed;
+    private long imported;
+    private long failed;
+    private boolean errorsTruncated;
+    private List<ProductImportError> errors = new ArrayList<>();
+}
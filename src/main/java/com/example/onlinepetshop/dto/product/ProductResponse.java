@@ -1,5 +1,6 @@
 package com.example.onlinepetshop.dto.product;
 
+import com.example.onlinepetshop.dto.category.CategoryResponse;
 import com.example.onlinepetshop.entity.Product;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -16,9 +17,16 @@ public class ProductResponse {
     private String description;
     private BigDecimal price;
     private String imageUrl;
-    private Long categoryId;
+    private CategoryResponse category;
     private int stock;
 
+    // Конструктор для JPQL-проекций: категория приходит плоскими колонками из left join
+    public ProductResponse(Long id, String name, String description, BigDecimal price, String imageUrl,
+                           Long categoryId, String categoryName, int stock) {
+        this(id, name, description, price, imageUrl,
+                categoryId == null ? null : new CategoryResponse(categoryId, categoryName), stock);
+    }
+
     public static ProductResponse from(Product product) {
         return new ProductResponse(
                 product.getId(),
@@ -26,7 +34,8 @@ public class ProductResponse {
                 product.getDescription(),
                 product.getPrice(),
                 product.getImageUrl(),
-                product.getCategory().getId(),
+                product.getCategory() == null ? null : product.getCategory().getId(),
+                product.getCategory() == null ? null : product.getCategory().getName(),
                 product.getStock()
         );
     }
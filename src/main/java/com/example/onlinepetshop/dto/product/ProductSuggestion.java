@@ -0,0 +1,3 @@
+package com.example.onlinepetshop.dto.product;
+
+public record ProductSuggestion(Long productId, String name) {}
@@ -0,0 +1,56 @@
+package com.example.onlinepetshop.entity;
+
+import com.example.onlinepetshop.entity.enums.OrderStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Завершённый заказ, перенесённый из orders вместе со снимком позиций из модели чтения.
+// Месяц заказа (yyyyMM) ведёт первичный ключ: на MySQL по нему идёт секционирование по диапазонам
+@Entity
+@Table(name = "orders_archive", indexes = {
+        @Index(name = "idx_orders_archive_id", columnList = "id"),
+        @Index(name = "idx_orders_archive_email_date", columnList = "user_email, order_date, id"),
+        @Index(name = "idx_orders_archive_user", columnList = "user_id")
+})
+@IdClass(ArchivedOrder.Key.class)
+@Getter
+@Setter
+public class ArchivedOrder {
+    @Id
+    private Integer archiveMonth;
+
+    @Id
+    private Long id;
+
+    private Long userId;
+    private String userEmail;
+    private LocalDateTime orderDate;
+
+    @Enumerated(EnumType.STRING)
+    private OrderStatus status;
+
+    private BigDecimal total;
+
+    private String phone;
+    private String address;
+    private String comment;
+
+    @Lob
+    private String items;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Integer archiveMonth;
+        private Long id;
+    }
+}
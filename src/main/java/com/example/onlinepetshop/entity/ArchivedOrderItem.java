@@ -0,0 +1,38 @@
+package com.example.onlinepetshop.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+// Позиция архивного заказа; товар хранится id без внешнего ключа, чтобы архив не мешал удалять товары
+@Entity
+@Table(name = "order_item_archive", indexes = @Index(name = "idx_order_item_archive_order", columnList = "order_id"))
+@IdClass(ArchivedOrderItem.Key.class)
+@Getter
+@Setter
+public class ArchivedOrderItem {
+    @Id
+    private Integer archiveMonth;
+
+    @Id
+    private Long id;
+
+    private Long orderId;
+    private Long productId;
+    private int quantity;
+    private BigDecimal price;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Integer archiveMonth;
+        private Long id;
+    }
+}
@@ -7,6 +7,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_cart_user", columnNames = "user_id"))
 @NoArgsConstructor
 @AllArgsConstructor
 @Data
@@ -20,4 +21,8 @@ public class Cart {
 
     @OneToMany(mappedBy = "cart", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<CartItem> items = new ArrayList<>();
+
+    // Строки корзины в режиме cart.storage=document: JSON-массив пар [productId, quantity]
+    @Lob
+    private String document;
 }
@@ -10,7 +10,8 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+// Индекс отбирает завершённые заказы для переноса в архив
+@Table(name = "orders", indexes = @Index(name = "idx_orders_status_order_date", columnList = "status, order_date"))
 @Getter
 @Setter
 public class Order {
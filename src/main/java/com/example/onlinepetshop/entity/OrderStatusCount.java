@@ -0,0 +1,18 @@
+package com.example.onlinepetshop.entity;
+
+import com.example.onlinepetshop.entity.enums.OrderStatus;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+@Entity
+@Table(name = "order_status_count")
+@Getter
+@Setter
+public class OrderStatusCount {
+    @Id
+    @Enumerated(EnumType.STRING)
+    private OrderStatus status;
+
+    private long orderCount;
+}
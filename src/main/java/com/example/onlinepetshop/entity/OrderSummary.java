@@ -0,0 +1,40 @@
+package com.example.onlinepetshop.entity;
+
+import com.example.onlinepetshop.entity.enums.OrderStatus;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Модель чтения заказа: одна строка на заказ со снимком позиций (JSON), без соединений при чтении.
+// Пишется в той же транзакции, что и сам заказ
+@Entity
+@Table(name = "order_summary", indexes = {
+        @Index(name = "idx_order_summary_email_date", columnList = "user_email, order_date, id"),
+        @Index(name = "idx_order_summary_status_date", columnList = "status, order_date"),
+        @Index(name = "idx_order_summary_date", columnList = "order_date")
+})
+@Getter
+@Setter
+public class OrderSummary {
+    @Id
+    private Long id;
+
+    private Long userId;
+    private String userEmail;
+    private LocalDateTime orderDate;
+
+    @Enumerated(EnumType.STRING)
+    private OrderStatus status;
+
+    private BigDecimal total;
+
+    private String phone;
+    private String address;
+    private String comment;
+
+    @Lob
+    private String items;
+}
@@ -0,0 +1,37 @@
+package com.example.onlinepetshop.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Entity
+@Table(name = "product_sales_daily")
+@IdClass(ProductSalesDaily.Key.class)
+@Getter
+@Setter
+public class ProductSalesDaily {
+    @Id
+    private LocalDate salesDate;
+
+    @Id
+    private Long productId;
+
+    private Long categoryId;
+    private long units;
+    private BigDecimal revenue;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private LocalDate salesDate;
+        private Long productId;
+    }
+}
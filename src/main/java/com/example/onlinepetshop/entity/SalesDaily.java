@@ -0,0 +1,22 @@
+package com.example.onlinepetshop.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Свёртка продаж по дням; отменённые заказы не учитываются
+@Entity
+@Table(name = "sales_daily")
+@Getter
+@Setter
+public class SalesDaily {
+    @Id
+    private LocalDate salesDate;
+
+    private long orderCount;
+    private long units;
+    private BigDecimal revenue;
+}
@@ -0,0 +1,22 @@
+package com.example.onlinepetshop.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+// Приращение свёрток продаж (OrderSalesEvent в JSON), записанное в транзакции заказа.
+// Поток свёрток применяет и удаляет строки пачками, поэтому падение процесса приращений не теряет
+@Entity
+@Table(name = "sales_rollup_outbox")
+@Getter
+@Setter
+public class SalesOutboxEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long orderId;
+
+    @Lob
+    private String payload;
+}
@@ -0,0 +1,43 @@
+package com.example.onlinepetshop.repository;
+
+import com.example.onlinepetshop.dto.order.OrderResponse;
+import com.example.onlinepetshop.entity.ArchivedOrder;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ArchivedOrderRepository extends JpaRepository<ArchivedOrder, ArchivedOrder.Key> {
+
+    Optional<ArchivedOrder> findFirstById(Long id);
+
+    @Query("select new com.example.onlinepetshop.dto.order.OrderResponse(a.id, a.status, a.orderDate, a.total) " +
+            "from ArchivedOrder a where a.userEmail = :email order by a.orderDate desc, a.id desc")
+    List<OrderResponse> findHeadersByUserEmail(@Param("email") String email, Limit limit);
+
+    @Query("select new com.example.onlinepetshop.dto.order.OrderResponse(a.id, a.status, a.orderDate, a.total) " +
+            "from ArchivedOrder a where a.userEmail = :email " +
+            "and (a.orderDate < :orderDate or (a.orderDate = :orderDate and a.id < :id)) " +
+            "order by a.orderDate desc, a.id desc")
+    List<OrderResponse> findHeadersByUserEmailBefore(@Param("email") String email,
+                                                     @Param("orderDate") LocalDateTime orderDate,
+                                                     @Param("id") Long id,
+                                                     Limit limit);
+
+    @Query("select a from ArchivedOrder a where a.userEmail = :email order by a.orderDate desc, a.id desc")
+    List<ArchivedOrder> findByUserEmail(@Param("email") String email, Limit limit);
+
+    @Query("select a from ArchivedOrder a where a.userEmail = :email " +
+            "and (a.orderDate < :orderDate or (a.orderDate = :orderDate and a.id < :id)) " +
+            "order by a.orderDate desc, a.id desc")
+    List<ArchivedOrder> findByUserEmailBefore(@Param("email") String email,
+                                              @Param("orderDate") LocalDateTime orderDate,
+                                              @Param("id") Long id,
+                                              Limit limit);
+}
@@ -3,14 +3,22 @@ package com.example.onlinepetshop.repository;
 import com.example.onlinepetshop.entity.Cart;
 import com.example.onlinepetshop.entity.CartItem;
 import com.example.onlinepetshop.entity.Product;
+import com.example.onlinepetshop.dto.cart.CartItemResponse;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CartItemRepository extends JpaRepository<CartItem, Long> {
     Optional<CartItem> findByCartAndProduct(Cart cart, Product product);
     void deleteByProduct(Product product);
+
+    @Query("select new com.example.onlinepetshop.dto.cart.CartItemResponse(p.id, p.name, p.imageUrl, i.quantity, p.price) " +
+            "from CartItem i join i.product p where i.cart.user.id = :userId order by i.id")
+    List<CartItemResponse> findResponsesByUserId(@Param("userId") Long userId);
 }
 
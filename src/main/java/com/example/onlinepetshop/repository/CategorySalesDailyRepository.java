@@ -0,0 +1,21 @@
+package com.example.onlinepetshop.repository;
+
+import com.example.onlinepetshop.dto.analytics.CategorySales;
+import com.example.onlinepetshop.entity.CategorySalesDaily;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface CategorySalesDailyRepository extends JpaRepository<CategorySalesDaily, CategorySalesDaily.Key> {
+    @Query("select new com.example.onlinepetshop.dto.analytics.CategorySales(s.categoryId, c.name, sum(s.units), sum(s.revenue)) " +
+            "from CategorySalesDaily s left join Category c on c.id = s.categoryId " +
+            "where s.salesDate between :from and :to " +
+            "group by s.categoryId, c.name having sum(s.units) <> 0 " +
+            "order by sum(s.revenue) desc, s.categoryId")
+    List<CategorySales> sumByCategory(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
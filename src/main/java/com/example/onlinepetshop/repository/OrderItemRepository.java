@@ -1,12 +1,21 @@
 package com.example.onlinepetshop.repository;
 
 import com.example.onlinepetshop.entity.OrderItem;
+import com.example.onlinepetshop.service.order.OrderSalesLine;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
     void deleteByOrderId(Long orderId);
 
     boolean existsByOrderId(Long id);
+
+    @Query("select new com.example.onlinepetshop.service.order.OrderSalesLine(p.id, c.id, oi.quantity, oi.price) " +
+            "from OrderItem oi join oi.product p left join p.category c where oi.order.id = :orderId")
+    List<OrderSalesLine> findSalesLinesByOrderId(@Param("orderId") Long orderId);
 }
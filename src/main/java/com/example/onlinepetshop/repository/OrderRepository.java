@@ -2,14 +2,29 @@ package com.example.onlinepetshop.repository;
 
 import com.example.onlinepetshop.entity.Order;
 import com.example.onlinepetshop.entity.User;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
     List<Order> findByUserId(Long userId);
     List<Order> findByUser(User user);
+
+    // Смена статуса и удаление возвращают остатки, поэтому строка заказа блокируется до конца транзакции
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select o from Order o where o.id = :id")
+    Optional<Order> findForUpdateById(@Param("id") Long id);
+
+    @Query("select distinct o from Order o join fetch o.user left join fetch o.items i " +
+            "left join fetch i.product p left join fetch p.category where o.id in :ids")
+    List<Order> findWithItemsByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,10 @@
+package com.example.onlinepetshop.repository;
+
+import com.example.onlinepetshop.entity.OrderStatusCount;
+import com.example.onlinepetshop.entity.enums.OrderStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface OrderStatusCountRepository extends JpaRepository<OrderStatusCount, OrderStatus> {
+}
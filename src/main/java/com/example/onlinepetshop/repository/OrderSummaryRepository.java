@@ -0,0 +1,40 @@
+package com.example.onlinepetshop.repository;
+
+import com.example.onlinepetshop.dto.order.OrderResponse;
+import com.example.onlinepetshop.entity.OrderSummary;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OrderSummaryRepository extends JpaRepository<OrderSummary, Long>, OrderSummarySearchRepository {
+
+    @Query("select new com.example.onlinepetshop.dto.order.OrderResponse(s.id, s.status, s.orderDate, s.total) " +
+            "from OrderSummary s where s.userEmail = :email order by s.orderDate desc, s.id desc")
+    List<OrderResponse> findHeadersByUserEmail(@Param("email") String email, Limit limit);
+
+    @Query("select new com.example.onlinepetshop.dto.order.OrderResponse(s.id, s.status, s.orderDate, s.total) " +
+            "from OrderSummary s where s.userEmail = :email " +
+            "and (s.orderDate < :orderDate or (s.orderDate = :orderDate and s.id < :id)) " +
+            "order by s.orderDate desc, s.id desc")
+    List<OrderResponse> findHeadersByUserEmailBefore(@Param("email") String email,
+                                                     @Param("orderDate") LocalDateTime orderDate,
+                                                     @Param("id") Long id,
+                                                     Limit limit);
+
+    @Query("select s from OrderSummary s where s.userEmail = :email order by s.orderDate desc, s.id desc")
+    List<OrderSummary> findByUserEmail(@Param("email") String email, Limit limit);
+
+    @Query("select s from OrderSummary s where s.userEmail = :email " +
+            "and (s.orderDate < :orderDate or (s.orderDate = :orderDate and s.id < :id)) " +
+            "order by s.orderDate desc, s.id desc")
+    List<OrderSummary> findByUserEmailBefore(@Param("email") String email,
+                                             @Param("orderDate") LocalDateTime orderDate,
+                                             @Param("id") Long id,
+                                             Limit limit);
+}
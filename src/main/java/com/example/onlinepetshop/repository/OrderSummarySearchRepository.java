@@ -0,0 +1,15 @@
+package com.example.onlinepetshop.repository;
+
+import com.example.onlinepetshop.dto.order.AdminOrderFilter;
+import com.example.onlinepetshop.entity.OrderSummary;
+
+import java.util.List;
+
+public interface OrderSummarySearchRepository {
+    long countByFilter(AdminOrderFilter filter);
+
+    // Страница от новых к старым; строка модели чтения уже содержит позиции, догружать нечего
+    List<OrderSummary> findByFilter(AdminOrderFilter filter, int offset, int limit);
+
+    List<Long> findIdsByFilter(AdminOrderFilter filter, int limit);
+}
@@ -0,0 +1,75 @@
+package com.example.onlinepetshop.repository;
+
+import com.example.onlinepetshop.dto.order.AdminOrderFilter;
+import com.example.onlinepetshop.entity.OrderSummary;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class OrderSummarySearchRepositoryImpl implements OrderSummarySearchRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public long countByFilter(AdminOrderFilter filter) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<OrderSummary> order = query.from(OrderSummary.class);
+        query.select(cb.count(order)).where(predicates(cb, order, filter));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    @Override
+    public List<OrderSummary> findByFilter(AdminOrderFilter filter, int offset, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<OrderSummary> query = cb.createQuery(OrderSummary.class);
+        Root<OrderSummary> order = query.from(OrderSummary.class);
+        query.select(order)
+                .where(predicates(cb, order, filter))
+                .orderBy(cb.desc(order.get("orderDate")), cb.desc(order.get("id")));
+        return entityManager.createQuery(query)
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public List<Long> findIdsByFilter(AdminOrderFilter filter, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<OrderSummary> order = query.from(OrderSummary.class);
+        query.select(order.get("id"))
+                .where(predicates(cb, order, filter))
+                .orderBy(cb.asc(order.get("id")));
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    private static Predicate[] predicates(CriteriaBuilder cb, Root<OrderSummary> order, AdminOrderFilter filter) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter.getStatus() != null) {
+            predicates.add(cb.equal(order.get("status"), filter.getStatus()));
+        }
+        if (filter.getFrom() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(order.get("orderDate"), filter.getFrom()));
+        }
+        if (filter.getTo() != null) {
+            predicates.add(cb.lessThan(order.get("orderDate"), filter.getTo()));
+        }
+        if (filter.getEmail() != null && !filter.getEmail().isBlank()) {
+            predicates.add(cb.equal(order.get("userEmail"), filter.getEmail().trim()));
+        }
+        if (filter.getMinTotal() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(order.get("total"), filter.getMinTotal()));
+        }
+        return predicates.toArray(new Predicate[0]);
+    }
+}
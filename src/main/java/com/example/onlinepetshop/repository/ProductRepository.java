@@ -1,13 +1,58 @@
 package com.example.onlinepetshop.repository;
 
+import com.example.onlinepetshop.dto.product.ProductResponse;
 import com.example.onlinepetshop.entity.Product;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Product> findByCategoryId(Long categoryId);
     List<Product> findByNameContainingIgnoreCase(String name);
+
+    Window<Product> findAllBy(ScrollPosition position, Sort sort, Limit limit);
+
+    // Keyset-прокрутка не умеет null в ключе: товары с ценой/названием и без них листаются отдельно,
+    // вторые идут после первых по id
+    Window<Product> findAllByPriceNotNull(ScrollPosition position, Sort sort, Limit limit);
+    Window<Product> findAllByPriceIsNull(ScrollPosition position, Sort sort, Limit limit);
+    Window<Product> findAllByNameNotNull(ScrollPosition position, Sort sort, Limit limit);
+    Window<Product> findAllByNameIsNull(ScrollPosition position, Sort sort, Limit limit);
+
+    @Query("select new com.example.onlinepetshop.dto.product.ProductResponse(" +
+            "p.id, p.name, p.description, p.price, p.imageUrl, c.id, c.name, p.stock) " +
+            "from Product p left join p.category c where p.id > :afterId order by p.id")
+    List<ProductResponse> findCardsAfter(@Param("afterId") long afterId, Limit limit);
+
+    @Query("select new com.example.onlinepetshop.dto.product.ProductResponse(" +
+            "p.id, p.name, p.description, p.price, p.imageUrl, c.id, c.name, p.stock) " +
+            "from Product p left join p.category c where p.id in :ids")
+    List<ProductResponse> findCardsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Обходит весь каталог пачками по id, читая только колонки карточки без гидрации сущностей
+    default void scrollAll(int batchSize, Consumer<List<ProductResponse>> consumer) {
+        long afterId = 0;
+        List<ProductResponse> batch;
+        do {
+            batch = findCardsAfter(afterId, Limit.of(batchSize));
+            if (!batch.isEmpty()) {
+                consumer.accept(batch);
+                afterId = batch.get(batch.size() - 1).getId();
+            }
+        } while (batch.size() == batchSize);
+    }
 }
@@ -0,0 +1,32 @@
+package com.example.onlinepetshop.repository;
+
+import com.example.onlinepetshop.dto.analytics.ProductSales;
+import com.example.onlinepetshop.entity.ProductSalesDaily;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ProductSalesDailyRepository extends JpaRepository<ProductSalesDaily, ProductSalesDaily.Key> {
+    @Query("select new com.example.onlinepetshop.dto.analytics.ProductSales(s.productId, p.name, sum(s.units), sum(s.revenue)) " +
+            "from ProductSalesDaily s left join Product p on p.id = s.productId " +
+            "where s.salesDate between :from and :to " +
+            "group by s.productId, p.name having sum(s.units) <> 0 " +
+            "order by sum(s.units) desc, s.productId")
+    List<ProductSales> findTopSellers(@Param("from") LocalDate from, @Param("to") LocalDate to, Limit limit);
+
+    // Продано за всё время: свёртка уже без отменённых заказов и вместе с архивом
+    @Query("select s.productId as productId, sum(s.units) as units from ProductSalesDaily s " +
+            "group by s.productId having sum(s.units) <> 0")
+    List<UnitsSold> sumUnitsByProduct();
+
+    interface UnitsSold {
+        Long getProductId();
+        Long getUnits();
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.onlinepetshop.repository;
+
+import com.example.onlinepetshop.entity.SalesDaily;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface SalesDailyRepository extends JpaRepository<SalesDaily, LocalDate> {
+    List<SalesDaily> findBySalesDateBetweenOrderBySalesDate(LocalDate from, LocalDate to);
+}
@@ -1,8 +1,11 @@
 package com.example.onlinepetshop.repository;
 
+import com.example.onlinepetshop.dto.product.ProductResponse;
 import com.example.onlinepetshop.entity.User;
 import com.example.onlinepetshop.entity.Wishlist;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -12,4 +15,10 @@ import java.util.Optional;
 public interface WishlistRepository extends JpaRepository<Wishlist, Long> {
     Optional<Wishlist> findByUser(User user);
     List<Wishlist> findAllByItemsProductId(Long productId);
+
+    @Query("select new com.example.onlinepetshop.dto.product.ProductResponse(" +
+            "p.id, p.name, p.description, p.price, p.imageUrl, c.id, c.name, p.stock) " +
+            "from WishlistItem wi join wi.product p left join p.category c " +
+            "where wi.wishlist.user.email = :email order by wi.id")
+    List<ProductResponse> findProductsByUserEmail(@Param("email") String email);
 }
@@ -0,0 +1,12 @@
+package com.example.onlinepetshop.service.analytics;
+
+import com.example.onlinepetshop.dto.analytics.RollupRebuildReport;
+import com.example.onlinepetshop.dto.analytics.SalesReport;
+
+import java.time.LocalDate;
+
+public interface SalesAnalyticsService {
+    SalesReport getSalesReport(LocalDate from, LocalDate to, int top);
+
+    RollupRebuildReport rebuild();
+}
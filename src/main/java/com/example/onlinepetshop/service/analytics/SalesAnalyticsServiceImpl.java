@@ -0,0 +1,97 @@
+package com.example.onlinepetshop.service.analytics;
+
+import com.example.onlinepetshop.dto.analytics.DailySales;
+import com.example.onlinepetshop.dto.analytics.RollupRebuildReport;
+import com.example.onlinepetshop.dto.analytics.SalesReport;
+import com.example.onlinepetshop.entity.enums.OrderStatus;
+import com.example.onlinepetshop.repository.ArchivedOrderRepository;
+import com.example.onlinepetshop.repository.CategorySalesDailyRepository;
+import com.example.onlinepetshop.repository.OrderRepository;
+import com.example.onlinepetshop.repository.OrderStatusCountRepository;
+import com.example.onlinepetshop.repository.ProductSalesDailyRepository;
+import com.example.onlinepetshop.repository.SalesDailyRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+// Отчёты читают только свёртки: объём чтения зависит от числа дней и товаров, а не от числа заказов
+@Service
+@RequiredArgsConstructor
+public class SalesAnalyticsServiceImpl implements SalesAnalyticsService {
+
+    private static final int DEFAULT_PERIOD_DAYS = 30;
+    private static final int MAX_TOP = 100;
+
+    private final SalesDailyRepository salesDailyRepository;
+    private final OrderStatusCountRepository orderStatusCountRepository;
+    private final ProductSalesDailyRepository productSalesDailyRepository;
+    private final CategorySalesDailyRepository categorySalesDailyRepository;
+    private final OrderRepository orderRepository;
+    private final ArchivedOrderRepository archivedOrderRepository;
+    private final SalesRollupWriter rollupWriter;
+
+    @Value("${analytics.max-period-days:3660}")
+    private int maxPeriodDays;
+
+    // Первый запуск на существующей базе: свёрток ещё нет, а заказы уже есть
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (orderStatusCountRepository.count() == 0 && (orderRepository.count() > 0 || archivedOrderRepository.count() > 0)) {
+            rollupWriter.rebuild();
+        }
+    }
+
+    @Override
+    public SalesReport getSalesReport(LocalDate from, LocalDate to, int top) {
+        LocalDate end = to == null ? LocalDate.now() : to;
+        LocalDate start = from == null ? end.minusDays(DEFAULT_PERIOD_DAYS - 1) : from;
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("Начало периода позже его окончания");
+        }
+        if (ChronoUnit.DAYS.between(start, end) >= maxPeriodDays) {
+            throw new IllegalArgumentException("Слишком длинный период отчёта");
+        }
+        if (top < 1) {
+            throw new IllegalArgumentException("Размер рейтинга должен быть положительным");
+        }
+
+        List<DailySales> daily = salesDailyRepository.findBySalesDateBetweenOrderBySalesDate(start, end).stream()
+                .map(d -> new DailySales(d.getSalesDate(), d.getOrderCount(), d.getUnits(), d.getRevenue()))
+                .toList();
+        long orders = daily.stream().mapToLong(DailySales::orders).sum();
+        long units = daily.stream().mapToLong(DailySales::units).sum();
+        BigDecimal revenue = daily.stream().map(DailySales::revenue).reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        Map<OrderStatus, Long> byStatus = new EnumMap<>(OrderStatus.class);
+        orderStatusCountRepository.findAll().stream()
+                .filter(count -> count.getOrderCount() != 0)
+                .forEach(count -> byStatus.put(count.getStatus(), count.getOrderCount()));
+
+        return new SalesReport(
+                start,
+                end,
+                orders,
+                units,
+                revenue,
+                daily,
+                byStatus,
+                productSalesDailyRepository.findTopSellers(start, end, Limit.of(Math.min(top, MAX_TOP))),
+                categorySalesDailyRepository.sumByCategory(start, end)
+        );
+    }
+
+    @Override
+    public RollupRebuildReport rebuild() {
+        return rollupWriter.rebuild();
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.onlinepetshop.service.analytics;
+
+import com.example.onlinepetshop.entity.enums.OrderStatus;
+import com.example.onlinepetshop.service.order.OrderSalesEvent;
+import com.example.onlinepetshop.service.order.OrderSalesLine;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Пересчёт свёрток по истории: диапазон id заказов делится пополам, пока не станет не больше chunk-size,
+// листья читают свой диапазон заказов и позиций, частичные свёртки сливаются при возврате
+@Component
+@RequiredArgsConstructor
+class SalesBackfill {
+
+    // Архивные заказы входят в историю продаж наравне с горячими; union all читается одним запросом,
+    // поэтому заказ, переносимый в архив во время скана, не посчитается дважды
+    private static final String ORDERS_SQL =
+            "select order_date, status from orders where id >= ? and id < ? " +
+            "union all select order_date, status from orders_archive where id >= ? and id < ?";
+    private static final String LINES_SQL =
+            "select o.order_date, o.status, i.product_id, p.category_id, i.quantity, i.price " +
+            "from order_item i join orders o on o.id = i.order_id left join product p on p.id = i.product_id " +
+            "where o.id >= ? and o.id < ? " +
+            "union all select a.order_date, a.status, i.product_id, p.category_id, i.quantity, i.price " +
+            "from order_item_archive i join orders_archive a on a.id = i.order_id left join product p on p.id = i.product_id " +
+            "where a.id >= ? and a.id < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${analytics.backfill.chunk-size:20000}")
+    private long chunkSize;
+
+    // Каждый лист держит соединение из пула, поэтому параллелизм ограничен отдельно от числа ядер
+    @Value("${analytics.backfill.parallelism:4}")
+    private int parallelism;
+
+    SalesRollup scan(long fromId, long toId) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return pool.invoke(new ScanTask(fromId, toId));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private final class ScanTask extends RecursiveTask<SalesRollup> {
+        private final long fromId;
+        private final long toId;
+
+        ScanTask(long fromId, long toId) {
+            this.fromId = fromId;
+            this.toId = toId;
+        }
+
+        @Override
+        protected SalesRollup compute() {
+            if (toId - fromId <= chunkSize) {
+                return scanRange();
+            }
+            long middle = fromId + (toId - fromId) / 2;
+            ScanTask left = new ScanTask(fromId, middle);
+            left.fork();
+            SalesRollup right = new ScanTask(middle, toId).compute();
+            return left.join().merge(right);
+        }
+
+        private SalesRollup scanRange() {
+            SalesRollup rollup = new SalesRollup();
+            jdbcTemplate.query(ORDERS_SQL, rs -> {
+                LocalDate date = date(rs);
+                if (date != null) {
+                    rollup.addOrder(date, status(rs));
+                }
+            }, fromId, toId, fromId, toId);
+            jdbcTemplate.query(LINES_SQL, rs -> {
+                LocalDate date = date(rs);
+                if (date != null && OrderSalesEvent.counted(status(rs)) && rs.getBigDecimal("price") != null) {
+                    Long categoryId = rs.getObject("category_id", Long.class);
+                    rollup.addLine(date, new OrderSalesLine(rs.getLong("product_id"), categoryId,
+                            rs.getInt("quantity"), rs.getBigDecimal("price")), 1);
+                }
+            }, fromId, toId, fromId, toId);
+            return rollup;
+        }
+    }
+
+    private static LocalDate date(ResultSet rs) throws SQLException {
+        Timestamp orderDate = rs.getTimestamp("order_date");
+        return orderDate == null ? null : orderDate.toLocalDateTime().toLocalDate();
+    }
+
+    private static OrderStatus status(ResultSet rs) throws SQLException {
+        String status = rs.getString("status");
+        return status == null ? null : OrderStatus.valueOf(status);
+    }
+}
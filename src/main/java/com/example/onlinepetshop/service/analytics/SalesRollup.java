@@ -0,0 +1,105 @@
+package com.example.onlinepetshop.service.analytics;
+
+import com.example.onlinepetshop.entity.enums.OrderStatus;
+import com.example.onlinepetshop.service.order.OrderSalesEvent;
+import com.example.onlinepetshop.service.order.OrderSalesLine;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Накопитель приращений свёрток. Ключи отсортированы, поэтому строки свёрток
+// всегда обновляются в одном порядке и встречные транзакции не взаимоблокируются
+final class SalesRollup {
+
+    record DatedKey(LocalDate date, long id) implements Comparable<DatedKey> {
+        private static final Comparator<DatedKey> ORDER =
+                Comparator.comparing(DatedKey::date).thenComparingLong(DatedKey::id);
+
+        @Override
+        public int compareTo(DatedKey other) {
+            return ORDER.compare(this, other);
+        }
+    }
+
+    static final class Totals {
+        long orders;
+        long units;
+        BigDecimal revenue = BigDecimal.ZERO;
+        Long categoryId;
+
+        void add(Totals other) {
+            orders += other.orders;
+            units += other.units;
+            revenue = revenue.add(other.revenue);
+            if (other.categoryId != null) {
+                categoryId = other.categoryId;
+            }
+        }
+    }
+
+    final Map<LocalDate, Totals> daily = new TreeMap<>();
+    final Map<OrderStatus, Long> statuses = new EnumMap<>(OrderStatus.class);
+    final Map<DatedKey, Totals> products = new TreeMap<>();
+    final Map<DatedKey, Totals> categories = new TreeMap<>();
+    long orderCount;
+    long lineCount;
+
+    void apply(OrderSalesEvent event) {
+        if (event.previousStatus() != null) {
+            statuses.merge(event.previousStatus(), -1L, Long::sum);
+        }
+        if (event.status() != null) {
+            statuses.merge(event.status(), 1L, Long::sum);
+        }
+        int sign = event.salesSign();
+        if (sign != 0) {
+            daily.computeIfAbsent(event.salesDate(), d -> new Totals()).orders += sign;
+            event.lines().forEach(line -> addLine(event.salesDate(), line, sign));
+        }
+    }
+
+    void addOrder(LocalDate date, OrderStatus status) {
+        orderCount++;
+        if (status != null) {
+            statuses.merge(status, 1L, Long::sum);
+        }
+        if (OrderSalesEvent.counted(status)) {
+            daily.computeIfAbsent(date, d -> new Totals()).orders++;
+        }
+    }
+
+    void addLine(LocalDate date, OrderSalesLine line, int sign) {
+        lineCount++;
+        long units = (long) line.quantity() * sign;
+        BigDecimal revenue = line.price().multiply(BigDecimal.valueOf(units));
+
+        Totals day = daily.computeIfAbsent(date, d -> new Totals());
+        day.units += units;
+        day.revenue = day.revenue.add(revenue);
+
+        Totals product = products.computeIfAbsent(new DatedKey(date, line.productId()), k -> new Totals());
+        product.units += units;
+        product.revenue = product.revenue.add(revenue);
+        product.categoryId = line.categoryId();
+
+        if (line.categoryId() != null) {
+            Totals category = categories.computeIfAbsent(new DatedKey(date, line.categoryId()), k -> new Totals());
+            category.units += units;
+            category.revenue = category.revenue.add(revenue);
+        }
+    }
+
+    SalesRollup merge(SalesRollup other) {
+        other.daily.forEach((key, totals) -> daily.computeIfAbsent(key, k -> new Totals()).add(totals));
+        other.statuses.forEach((key, count) -> statuses.merge(key, count, Long::sum));
+        other.products.forEach((key, totals) -> products.computeIfAbsent(key, k -> new Totals()).add(totals));
+        other.categories.forEach((key, totals) -> categories.computeIfAbsent(key, k -> new Totals()).add(totals));
+        orderCount += other.orderCount;
+        lineCount += other.lineCount;
+        return this;
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.onlinepetshop.service.analytics;
+
+import com.example.onlinepetshop.dto.analytics.RollupRebuildReport;
+import com.example.onlinepetshop.service.order.OrderSalesEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongBinaryOperator;
+
+// Поддерживает свёртки продаж: приращения через outbox-таблицу и полный пересчёт по истории
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SalesRollupWriter {
+
+    private static final String DAILY_SQL =
+            "insert into sales_daily (sales_date, order_count, units, revenue) values (?, ?, ?, ?) " +
+            "on duplicate key update order_count = order_count + values(order_count), " +
+            "units = units + values(units), revenue = revenue + values(revenue)";
+    private static final String STATUS_SQL =
+            "insert into order_status_count (status, order_count) values (?, ?) " +
+            "on duplicate key update order_count = order_count + values(order_count)";
+    private static final String PRODUCT_SQL =
+            "insert into product_sales_daily (sales_date, product_id, category_id, units, revenue) values (?, ?, ?, ?, ?) " +
+            "on duplicate key update category_id = values(category_id), " +
+            "units = units + values(units), revenue = revenue + values(revenue)";
+    private static final String CATEGORY_SQL =
+            "insert into category_sales_daily (sales_date, category_id, units, revenue) values (?, ?, ?, ?) " +
+            "on duplicate key update units = units + values(units), revenue = revenue + values(revenue)";
+    private static final List<String> TABLES =
+            List.of("sales_daily", "order_status_count", "product_sales_daily", "category_sales_daily");
+
+    private static final String OUTBOX_INSERT_SQL = "insert into sales_rollup_outbox (order_id, payload) values (?, ?)";
+    private static final String OUTBOX_BATCH_SQL =
+            "select id, order_id, payload from sales_rollup_outbox order by id limit ? for update";
+    private static final String OUTBOX_ALL_SQL = "select id, order_id, payload from sales_rollup_outbox for update";
+    private static final String OUTBOX_DELETE_SQL = "delete from sales_rollup_outbox where id = ?";
+
+    private static final String RANGE_SQL =
+            "select (select min(id) from orders) as min_id, (select max(id) from orders) as max_id, " +
+            "(select min(id) from orders_archive) as archive_min_id, (select max(id) from orders_archive) as archive_max_id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SalesBackfill backfill;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${analytics.rollup.batch-size:500}")
+    private int batchSize;
+
+    // Сброс и пересчёт не пересекаются; во время пересчёта приращения копятся в outbox
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    private record Pending(long id, long orderId, OrderSalesEvent event) {
+    }
+
+    // Приращение пишется строкой outbox в транзакции самого заказа и откатывается вместе с ним.
+    // Горячие строки свёрток заказ не трогает: их обновляет один писатель сразу за пачку заказов
+    @EventListener
+    public void onOrderSales(OrderSalesEvent event) {
+        jdbcTemplate.update(OUTBOX_INSERT_SQL, event.orderId(), toJson(event));
+    }
+
+    @Scheduled(fixedDelayString = "${analytics.rollup.flush-interval:PT1S}")
+    public void flush() {
+        if (!lock.tryLock()) {
+            return;
+        }
+        try {
+            Integer applied;
+            do {
+                applied = transactionTemplate.execute(status -> flushBatch());
+            } while (applied != null && applied == batchSize);
+        } catch (RuntimeException e) {
+            // Пачка откатилась целиком и останется в outbox до следующего запуска
+            log.warn("Не удалось обновить свёртки продаж", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public RollupRebuildReport rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            throw new IllegalStateException("Пересчёт свёрток уже выполняется");
+        }
+        long started = System.currentTimeMillis();
+        lock.lock();
+        try {
+            // Заказы выше границы в скан не попадают — их приращения доигрываются из outbox в той же транзакции,
+            // что и запись свёрток. Смена статуса старого заказа во время скана может быть не учтена до следующего пересчёта
+            Map<String, Object> range = jdbcTemplate.queryForMap(RANGE_SQL);
+            Long minId = bound(range, "min_id", "archive_min_id", Math::min);
+            Long maxId = bound(range, "max_id", "archive_max_id", Math::max);
+            long boundary = maxId == null ? 0 : maxId;
+            SalesRollup rollup = minId == null ? new SalesRollup() : backfill.scan(minId, boundary + 1);
+
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Pending> pending = jdbcTemplate.query(OUTBOX_ALL_SQL, this::pending);
+                pending.stream()
+                        .filter(entry -> entry.orderId() > boundary)
+                        .forEach(entry -> rollup.apply(entry.event()));
+                TABLES.forEach(table -> jdbcTemplate.update("delete from " + table));
+                write(rollup);
+                delete(pending);
+            });
+            return new RollupRebuildReport(rollup.orderCount, rollup.lineCount, System.currentTimeMillis() - started);
+        } finally {
+            lock.unlock();
+            rebuilding.set(false);
+        }
+    }
+
+    // Границы id по горячей и архивной таблицам вместе; любая из них может быть пустой
+    private static Long bound(Map<String, Object> range, String hot, String archive, LongBinaryOperator pick) {
+        Number a = (Number) range.get(hot);
+        Number b = (Number) range.get(archive);
+        if (a == null) {
+            return b == null ? null : b.longValue();
+        }
+        return b == null ? a.longValue() : pick.applyAsLong(a.longValue(), b.longValue());
+    }
+
+    // Строки outbox блокируются на время пачки: приращение применяется и удаляется одной транзакцией
+    private int flushBatch() {
+        List<Pending> batch = jdbcTemplate.query(OUTBOX_BATCH_SQL, this::pending, batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        SalesRollup delta = new SalesRollup();
+        batch.forEach(entry -> delta.apply(entry.event()));
+        write(delta);
+        delete(batch);
+        return batch.size();
+    }
+
+    private void delete(List<Pending> entries) {
+        batch(OUTBOX_DELETE_SQL, entries.stream().map(entry -> new Object[]{entry.id()}).toList());
+    }
+
+    private Pending pending(ResultSet rs, int rowNum) throws SQLException {
+        try {
+            return new Pending(rs.getLong("id"), rs.getLong("order_id"),
+                    objectMapper.readValue(rs.getString("payload"), OrderSalesEvent.class));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Повреждено приращение свёрток продаж " + rs.getLong("id"), e);
+        }
+    }
+
+    private String toJson(OrderSalesEvent event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось сериализовать приращение свёрток продаж", e);
+        }
+    }
+
+    private void write(SalesRollup rollup) {
+        List<Object[]> daily = new ArrayList<>(rollup.daily.size());
+        rollup.daily.forEach((date, totals) ->
+                daily.add(new Object[]{Date.valueOf(date), totals.orders, totals.units, totals.revenue}));
+        List<Object[]> statuses = new ArrayList<>(rollup.statuses.size());
+        rollup.statuses.forEach((status, count) -> statuses.add(new Object[]{status.name(), count}));
+        List<Object[]> products = new ArrayList<>(rollup.products.size());
+        rollup.products.forEach((key, totals) -> products.add(
+                new Object[]{Date.valueOf(key.date()), key.id(), totals.categoryId, totals.units, totals.revenue}));
+        List<Object[]> categories = new ArrayList<>(rollup.categories.size());
+        rollup.categories.forEach((key, totals) ->
+                categories.add(new Object[]{Date.valueOf(key.date()), key.id(), totals.units, totals.revenue}));
+
+        batch(DAILY_SQL, daily);
+        batch(STATUS_SQL, statuses);
+        batch(PRODUCT_SQL, products);
+        batch(CATEGORY_SQL, categories);
+    }
+
+    private void batch(String sql, List<Object[]> rows) {
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, rows);
+        }
+    }
+}
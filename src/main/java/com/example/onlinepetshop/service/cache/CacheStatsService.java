@@ -0,0 +1,9 @@
+package com.example.onlinepetshop.service.cache;
+
+import com.example.onlinepetshop.dto.cache.CacheStatsResponse;
+
+public interface CacheStatsService {
+    CacheStatsResponse getStats();
+
+    void clear();
+}
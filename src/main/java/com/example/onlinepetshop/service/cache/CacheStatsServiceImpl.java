@@ -0,0 +1,52 @@
+package com.example.onlinepetshop.service.cache;
+
+import com.example.onlinepetshop.dto.cache.CacheRegionStats;
+import com.example.onlinepetshop.dto.cache.CacheStatsResponse;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+@Service
+@RequiredArgsConstructor
+public class CacheStatsServiceImpl implements CacheStatsService {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Override
+    public CacheStatsResponse getStats() {
+        Statistics statistics = statistics();
+        List<CacheRegionStats> regions = Arrays.stream(statistics.getSecondLevelCacheRegionNames())
+                .sorted()
+                .map(statistics::getCacheRegionStatistics)
+                .filter(Objects::nonNull)
+                .map(region -> new CacheRegionStats(region.getRegionName(), region.getHitCount(),
+                        region.getMissCount(), region.getPutCount()))
+                .toList();
+
+        return new CacheStatsResponse(
+                statistics.isStatisticsEnabled(),
+                regions,
+                statistics.getQueryCacheHitCount(),
+                statistics.getQueryCacheMissCount(),
+                statistics.getQueryCachePutCount(),
+                statistics.getQueryExecutionCount()
+        );
+    }
+
+    @Override
+    public void clear() {
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictAllRegions();
+        sessionFactory.getStatistics().clear();
+    }
+
+    private Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.onlinepetshop.service.cart;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+// Однократное слияние корзин, накопленных до уникальных ключей uk_cart_user и uk_cart_item_product:
+// строки лишних корзин переносятся в корзину с минимальным id, одинаковые товары складываются.
+// Выполняется до запуска JPA, иначе обновление схемы не сможет создать ключи
+@Slf4j
+@Component("cartDeduplication")
+@RequiredArgsConstructor
+class CartDeduplication {
+
+    private static final String DUPLICATE_CARTS_SQL =
+            "select c.id, k.keeper from cart c join (select user_id, min(id) as keeper from cart " +
+            "group by user_id having count(*) > 1) k on k.user_id = c.user_id where c.id <> k.keeper";
+    private static final String DUPLICATE_LINES_SQL =
+            "select cart_id, product_id, min(id) as keeper, sum(quantity) as total from cart_item " +
+            "group by cart_id, product_id having count(*) > 1";
+
+    // Бин JdbcTemplate ждёт инициализации БД, которая сама отложена до запуска JPA, поэтому шаблон создаётся здесь
+    private final DataSource dataSource;
+
+    @Component
+    static class JpaDependency extends EntityManagerFactoryDependsOnPostProcessor {
+        JpaDependency() {
+            super("cartDeduplication");
+        }
+    }
+
+    @PostConstruct
+    public void merge() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        List<long[]> carts;
+        try {
+            carts = jdbcTemplate.query(DUPLICATE_CARTS_SQL, (rs, rowNum) -> new long[]{rs.getLong("id"), rs.getLong("keeper")});
+        } catch (BadSqlGrammarException e) {
+            // Новая БД: таблиц ещё нет, схему создаст JPA
+            return;
+        }
+        List<Object[]> lines = jdbcTemplate.query(DUPLICATE_LINES_SQL, (rs, rowNum) -> new Object[]{
+                rs.getLong("cart_id"), rs.getLong("product_id"), rs.getLong("keeper"), rs.getInt("total")});
+        if (carts.isEmpty() && lines.isEmpty()) {
+            return;
+        }
+
+        // Менеджер транзакций JPA ещё не создан, поэтому транзакция — на уровне DataSource
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        transaction.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate("update cart_item set cart_id = ? where cart_id = ?",
+                    carts.stream().map(pair -> new Object[]{pair[1], pair[0]}).toList());
+            // После переноса строк дубликаты товаров могли появиться и в тех корзинах, где их не было
+            List<Object[]> merged = jdbcTemplate.query(DUPLICATE_LINES_SQL, (rs, rowNum) -> new Object[]{
+                    rs.getLong("cart_id"), rs.getLong("product_id"), rs.getLong("keeper"), rs.getInt("total")});
+            jdbcTemplate.batchUpdate("update cart_item set quantity = ? where id = ?",
+                    merged.stream().map(line -> new Object[]{line[3], line[2]}).toList());
+            jdbcTemplate.batchUpdate("delete from cart_item where cart_id = ? and product_id = ? and id <> ?",
+                    merged.stream().map(line -> new Object[]{line[0], line[1], line[2]}).toList());
+            jdbcTemplate.batchUpdate("delete from cart where id = ?",
+                    carts.stream().map(pair -> new Object[]{pair[0]}).toList());
+            log.info("Слиты дубликаты корзин: лишних корзин {}, повторяющихся товаров {}", carts.size(), merged.size());
+        });
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.onlinepetshop.service.cart;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Формат колонки cart.document (JSON-массив пар [productId, quantity]) и обратный перенос в cart_item.
+// Режим document забирает строки из cart_item при первой правке корзины, режимы db и write-behind при старте
+// возвращают документы в cart_item — поэтому cart.storage можно переключать в обе стороны
+@Slf4j
+@Component
+@RequiredArgsConstructor
+class CartDocuments {
+
+    private static final String DOCUMENTS_SQL =
+            "select id, document from cart where document is not null and id > ? order by id limit ?";
+    private static final String INSERT_ITEM_SQL = "insert into cart_item (cart_id, product_id, quantity) values (?, ?, ?)";
+    private static final int BATCH_SIZE = 500;
+
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    String toJson(Map<Long, Integer> lines) {
+        long[][] pairs = new long[lines.size()][];
+        int i = 0;
+        for (Map.Entry<Long, Integer> line : lines.entrySet()) {
+            pairs[i++] = new long[]{line.getKey(), line.getValue()};
+        }
+        try {
+            return objectMapper.writeValueAsString(pairs);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось сериализовать корзину", e);
+        }
+    }
+
+    Map<Long, Integer> fromJson(String json) {
+        Map<Long, Integer> lines = new LinkedHashMap<>();
+        try {
+            for (long[] pair : objectMapper.readValue(json, long[][].class)) {
+                lines.merge(pair[0], (int) pair[1], Integer::sum);
+            }
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Повреждён документ корзины", e);
+        }
+        return lines;
+    }
+
+    // Строки товаров, удалённых из каталога, не переносятся; после переноса document обнуляется
+    int restoreItems() {
+        int restored = 0;
+        long lastId = 0;
+        while (true) {
+            Map<Long, String> documents = new LinkedHashMap<>();
+            jdbcTemplate.query(DOCUMENTS_SQL, rs -> {
+                documents.put(rs.getLong("id"), rs.getString("document"));
+            }, lastId, BATCH_SIZE);
+            if (documents.isEmpty()) {
+                break;
+            }
+            transactionTemplate.executeWithoutResult(status -> restore(documents));
+            restored += documents.size();
+            lastId = documents.keySet().stream().mapToLong(Long::longValue).max().orElse(lastId);
+        }
+        if (restored > 0) {
+            log.info("Корзины из режима document перенесены в cart_item: {}", restored);
+        }
+        return restored;
+    }
+
+    private void restore(Map<Long, String> documents) {
+        Map<Long, Map<Long, Integer>> carts = new LinkedHashMap<>();
+        Set<Long> productIds = new HashSet<>();
+        documents.forEach((cartId, json) -> {
+            Map<Long, Integer> lines = fromJson(json);
+            carts.put(cartId, lines);
+            productIds.addAll(lines.keySet());
+        });
+        Set<Long> existing = new HashSet<>();
+        if (!productIds.isEmpty()) {
+            existing.addAll(jdbcTemplate.queryForList("select id from product where id in ("
+                    + String.join(", ", productIds.stream().map(id -> "?").toList()) + ")", Long.class, productIds.toArray()));
+        }
+
+        List<Object[]> inserts = new ArrayList<>();
+        carts.forEach((cartId, lines) -> lines.forEach((productId, quantity) -> {
+            if (existing.contains(productId)) {
+                inserts.add(new Object[]{cartId, productId, quantity});
+            }
+        }));
+        List<Object[]> ids = carts.keySet().stream().map(id -> new Object[]{id}).toList();
+        jdbcTemplate.batchUpdate("delete from cart_item where cart_id = ?", ids);
+        jdbcTemplate.batchUpdate(INSERT_ITEM_SQL, inserts);
+        jdbcTemplate.batchUpdate("update cart set document = null where id = ?", ids);
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.onlinepetshop.service.cart;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.stream.Stream;
+
+// Журнал корзин, ещё не сброшенных в БД: каждая правка дописывает полный снимок корзины строкой
+// "userId|productId:quantity,...;", так что при восстановлении достаточно последней строки пользователя.
+// Оформление заказа пишет перед фиксацией метку "userId#orderId|взятые строки;", а после — "userId#|снимок;":
+// метка без завершения значит, что процесс упал между фиксацией и списанием из корзины.
+// Перед каждым сбросом журнал переходит на новый сегмент; закрытые сегменты удаляются после успешной записи в БД
+final class CartJournal implements AutoCloseable {
+
+    record Checkout(long orderId, Map<Long, Integer> lines) {
+    }
+
+    // Последние снимки корзин и незавершённые оформления по пользователям
+    record Replay(Map<Long, Map<Long, Integer>> carts, Map<Long, Checkout> checkouts) {
+    }
+
+    private static final String PREFIX = "cart-";
+    private static final String SUFFIX = ".journal";
+    private static final String TERMINATOR = ";";
+
+    private final Path directory;
+    private final boolean fsync;
+    private FileChannel channel;
+    private long segment;
+
+    CartJournal(Path directory, boolean fsync) {
+        this.directory = directory;
+        this.fsync = fsync;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.segment = segments().stream().mapToLong(CartJournal::number).max().orElse(0);
+    }
+
+    Replay replay() {
+        Replay replay = new Replay(new LinkedHashMap<>(), new LinkedHashMap<>());
+        for (Path path : segments()) {
+            try (Stream<String> lines = Files.lines(path, StandardCharsets.UTF_8)) {
+                lines.forEach(line -> parse(line, replay));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return replay;
+    }
+
+    synchronized void open() {
+        try {
+            segment++;
+            channel = FileChannel.open(path(segment), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    synchronized void append(long userId, Map<Long, Integer> lines) {
+        write(userId + "|", lines);
+    }
+
+    synchronized void appendCheckout(long userId, Checkout checkout) {
+        write(userId + "#" + checkout.orderId() + "|", checkout.lines());
+    }
+
+    // Оформление завершено (зафиксировано или откачено); lines — итоговый снимок корзины
+    synchronized void appendCheckoutDone(long userId, Map<Long, Integer> lines) {
+        write(userId + "#|", lines);
+    }
+
+    private void write(String header, Map<Long, Integer> lines) {
+        StringJoiner joiner = new StringJoiner(",", header, TERMINATOR + "\n");
+        lines.forEach((productId, quantity) -> joiner.add(productId + ":" + quantity));
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(joiner.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (fsync) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Закрывает текущий сегмент и открывает следующий; возвращает номер закрытого
+    synchronized long rotate() {
+        long sealed = segment;
+        closeChannel();
+        open();
+        return sealed;
+    }
+
+    void deleteUpTo(long sealed) {
+        for (Path path : segments()) {
+            if (number(path) <= sealed) {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        closeChannel();
+    }
+
+    private void closeChannel() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.force(false);
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            channel = null;
+        }
+    }
+
+    private List<Path> segments() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().startsWith(PREFIX)
+                            && path.getFileName().toString().endsWith(SUFFIX))
+                    .sorted((a, b) -> Long.compare(number(a), number(b)))
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path path(long number) {
+        return directory.resolve(PREFIX + "%012d".formatted(number) + SUFFIX);
+    }
+
+    private static long number(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    // Строка без завершающего ";" оборвана сбоем посреди записи — её правка не была подтверждена клиенту
+    private static void parse(String line, Replay replay) {
+        int separator = line.indexOf('|');
+        if (separator < 0 || !line.endsWith(TERMINATOR)) {
+            return;
+        }
+        try {
+            String header = line.substring(0, separator);
+            int mark = header.indexOf('#');
+            long userId = Long.parseLong(mark < 0 ? header : header.substring(0, mark));
+            Map<Long, Integer> lines = new LinkedHashMap<>();
+            String body = line.substring(separator + 1, line.length() - TERMINATOR.length());
+            if (!body.isEmpty()) {
+                for (String pair : body.split(",")) {
+                    int colon = pair.indexOf(':');
+                    lines.put(Long.parseLong(pair.substring(0, colon)), Integer.parseInt(pair.substring(colon + 1)));
+                }
+            }
+            if (mark < 0) {
+                replay.carts().put(userId, lines);
+            } else if (mark == header.length() - 1) {
+                replay.carts().put(userId, lines);
+                replay.checkouts().remove(userId);
+            } else {
+                replay.checkouts().put(userId, new Checkout(Long.parseLong(header.substring(mark + 1)), lines));
+            }
+        } catch (RuntimeException e) {
+            // строка повреждена — пропускаем
+        }
+    }
+}
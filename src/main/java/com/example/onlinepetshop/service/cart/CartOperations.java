@@ -0,0 +1,102 @@
+package com.example.onlinepetshop.service.cart;
+
+import com.example.onlinepetshop.dto.cart.CartBatchRequest;
+import com.example.onlinepetshop.dto.cart.CartItemResponse;
+import com.example.onlinepetshop.dto.cart.CartOperation;
+import com.example.onlinepetshop.dto.cart.CartResponse;
+import com.example.onlinepetshop.entity.Product;
+import com.example.onlinepetshop.repository.ProductRepository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Общие для всех хранилищ корзины правила пакетных операций и сборки ответа по строкам (productId → количество)
+final class CartOperations {
+
+    static final int MAX_OPERATIONS = 200;
+
+    private CartOperations() {
+    }
+
+    static List<CartOperation> validate(CartBatchRequest request) {
+        List<CartOperation> operations = request.getOperations() == null ? List.of() : request.getOperations();
+        if (operations.size() > MAX_OPERATIONS) {
+            throw new IllegalArgumentException("Слишком много операций: максимум " + MAX_OPERATIONS);
+        }
+        for (CartOperation operation : operations) {
+            if (operation.getType() == null || operation.getProductId() == null) {
+                throw new IllegalArgumentException("У операции должны быть указаны тип и товар");
+            }
+            if (operation.getType() != CartOperation.Type.REMOVE) {
+                validateQuantity(operation.getQuantity());
+            }
+        }
+        return operations;
+    }
+
+    // Нулевое или отрицательное количество при добавлении или замене уменьшало бы корзину в обход удаления
+    static void validateQuantity(int quantity) {
+        if (quantity < 1) {
+            throw new IllegalArgumentException("Количество должно быть не меньше 1");
+        }
+    }
+
+    // Один запрос к каталогу на текущие строки и все товары из операций
+    static Map<Long, Product> loadProducts(ProductRepository productRepository, Collection<Long> lineIds,
+                                           List<CartOperation> operations) {
+        Set<Long> ids = new HashSet<>(lineIds);
+        operations.forEach(operation -> ids.add(operation.getProductId()));
+        return ids.isEmpty() ? Map.of() : productRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+    }
+
+    // Меняет lines на месте; вызывающий применяет к копии, чтобы ошибка не оставила корзину наполовину изменённой
+    static void apply(Map<Long, Integer> lines, List<CartOperation> operations, Map<Long, Product> products) {
+        for (CartOperation operation : operations) {
+            Long productId = operation.getProductId();
+            switch (operation.getType()) {
+                case ADD -> {
+                    if (!products.containsKey(productId)) {
+                        throw new NoSuchElementException("Продукт не найден");
+                    }
+                    lines.merge(productId, operation.getQuantity(), Integer::sum);
+                }
+                case SET -> {
+                    if (!lines.containsKey(productId)) {
+                        throw new NoSuchElementException("Товара нет в корзине");
+                    }
+                    lines.put(productId, operation.getQuantity());
+                }
+                case REMOVE -> {
+                    if (lines.remove(productId) == null) {
+                        throw new NoSuchElementException("Товара нет в корзине");
+                    }
+                }
+            }
+        }
+    }
+
+    // Строки удалённых из каталога товаров в ответ не попадают
+    static CartResponse toResponse(Map<Long, Integer> lines, Map<Long, Product> products) {
+        List<CartItemResponse> items = new ArrayList<>(lines.size());
+        lines.forEach((productId, quantity) -> {
+            Product product = products.get(productId);
+            if (product != null) {
+                items.add(new CartItemResponse(product.getId(), product.getName(), product.getImageUrl(), quantity,
+                        product.getPrice()));
+            }
+        });
+        BigDecimal total = items.stream()
+                .map(i -> i.getPricePerUnit().multiply(BigDecimal.valueOf(i.getQuantity())))
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return new CartResponse(items, total);
+    }
+}
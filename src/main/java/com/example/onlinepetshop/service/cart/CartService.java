@@ -1,13 +1,26 @@
 package com.example.onlinepetshop.service.cart;
 
 import com.example.onlinepetshop.dto.cart.AddToCartRequest;
+import com.example.onlinepetshop.dto.cart.CartBatchRequest;
+import com.example.onlinepetshop.dto.cart.CartItemDto;
 import com.example.onlinepetshop.dto.cart.CartResponse;
 
+import java.util.List;
+
 public interface CartService {
     void addToCart(String email, AddToCartRequest request);
     void removeFromCart(String email, Long productId);
     void updateQuantity(String email, AddToCartRequest request);
     void clearCart(String email);
     CartResponse getCart(String email);
+    CartResponse applyBatch(String email, CartBatchRequest request);
+
+    // Отдаёт строки корзины для оформления заказа и опустошает её в уже открытой транзакции заказа
+    List<CartItemDto> takeForCheckout(String email);
+
+    // Сообщает номер заказа, созданного из взятых строк, в той же транзакции; нужен реализациям,
+    // которые списывают корзину после фиксации и должны связать списание с заказом
+    default void checkedOut(String email, Long orderId) {
+    }
 }
 
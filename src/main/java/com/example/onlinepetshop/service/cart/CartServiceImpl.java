@@ -1,102 +1,111 @@
 package com.example.onlinepetshop.service.cart;
 
 import com.example.onlinepetshop.dto.cart.AddToCartRequest;
+import com.example.onlinepetshop.dto.cart.CartBatchRequest;
+import com.example.onlinepetshop.dto.cart.CartItemDto;
 import com.example.onlinepetshop.dto.cart.CartItemResponse;
+import com.example.onlinepetshop.dto.cart.CartOperation;
 import com.example.onlinepetshop.dto.cart.CartResponse;
-import com.example.onlinepetshop.entity.Cart;
-import com.example.onlinepetshop.entity.CartItem;
 import com.example.onlinepetshop.entity.Product;
 import com.example.onlinepetshop.entity.User;
 import com.example.onlinepetshop.repository.CartItemRepository;
-import com.example.onlinepetshop.repository.CartRepository;
 import com.example.onlinepetshop.repository.ProductRepository;
 import com.example.onlinepetshop.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 
+// Изменения позиций — одиночные операторы: количество наращивается в самой БД по уникальному ключу (cart_id, product_id),
+// поэтому параллельные добавления одного товара не теряют друг друга и не плодят дубликаты строк
 @Service
+@ConditionalOnProperty(name = "cart.storage", havingValue = "db", matchIfMissing = true)
 @RequiredArgsConstructor
 public class CartServiceImpl implements CartService {
 
-    private final CartRepository cartRepository;
+    private static final String CART_ID = "(select min(id) from cart where user_id = ?)";
+
+    // Строка не вставляется, если нет корзины или товара — тогда затронуто 0 строк
+    private static final String UPSERT_ITEM_SQL =
+            "insert into cart_item (cart_id, product_id, quantity) " +
+            "select c.id, p.id, ? from cart c join product p on p.id = ? where c.user_id = ? " +
+            "on duplicate key update quantity = quantity + values(quantity)";
+    private static final String INSERT_CART_SQL =
+            "insert into cart (user_id) values (?) on duplicate key update user_id = user_id";
+    private static final String SET_QUANTITY_SQL =
+            "update cart_item set quantity = ? where cart_id = " + CART_ID + " and product_id = ?";
+    private static final String DELETE_ITEM_SQL =
+            "delete from cart_item where cart_id = " + CART_ID + " and product_id = ?";
+    private static final String CLEAR_SQL = "delete from cart_item where cart_id = " + CART_ID;
+    private static final String LOCK_CART_SQL = "select id from cart where user_id = ? for update";
+    private static final String LOCK_ITEMS_SQL =
+            "select product_id, quantity from cart_item where cart_id = ? order by id for update";
+    private static final String ADD_ITEM_SQL =
+            "insert into cart_item (cart_id, product_id, quantity) values (?, ?, ?) " +
+            "on duplicate key update quantity = quantity + values(quantity)";
+    private static final String REMOVE_ITEM_SQL = "delete from cart_item where cart_id = ? and product_id = ?";
+    private static final String REMOVE_ALL_SQL = "delete from cart_item where cart_id = ?";
+
     private final CartItemRepository cartItemRepository;
-    private final ProductRepository productRepository;
     private final UserRepository userRepository;
+    private final ProductRepository productRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final CartDocuments documents;
+
+    // Корзины, которые велись в режиме document, возвращаются в cart_item
+    @PostConstruct
+    public void restoreDocuments() {
+        documents.restoreItems();
+    }
 
     @Override
+    @Transactional
     public void addToCart(String email, AddToCartRequest request) {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new UsernameNotFoundException("Пользователь не найден"));
-
-        Cart cart = cartRepository.findByUser(user)
-                .orElseGet(() -> cartRepository.save(new Cart(null, user, new ArrayList<>())));
-
-        Product product = productRepository.findById(request.getProductId())
-                .orElseThrow(() -> new NoSuchElementException("Продукт не найден"));
-
-        CartItem item = cartItemRepository.findByCartAndProduct(cart, product)
-                .orElse(new CartItem(null, cart, product, 0));
-
-        item.setQuantity(item.getQuantity() + request.getQuantity());
-        cart.getItems().add(item);
-        cartRepository.save(cart);
+        CartOperations.validateQuantity(request.getQuantity());
+        Long userId = userId(email);
+        if (upsertItem(userId, request) > 0) {
+            return;
+        }
+        // Первая покупка: заводим корзину (гонка двух первых добавлений гасится уникальным ключом) и повторяем
+        jdbcTemplate.update(INSERT_CART_SQL, userId);
+        if (upsertItem(userId, request) == 0) {
+            throw new NoSuchElementException("Продукт не найден");
+        }
     }
 
     @Override
     public void removeFromCart(String email, Long productId) {
-        User user = userRepository.findByEmail(email).orElseThrow();
-        Cart cart = cartRepository.findByUser(user).orElseThrow();
-        Product product = productRepository.findById(productId).orElseThrow();
-        CartItem item = cartItemRepository.findByCartAndProduct(cart, product).orElseThrow();
-
-        cart.getItems().remove(item);
-        cartItemRepository.delete(item);
-        cartRepository.save(cart);
+        if (jdbcTemplate.update(DELETE_ITEM_SQL, userId(email), productId) == 0) {
+            throw new NoSuchElementException("Товара нет в корзине");
+        }
     }
 
     @Override
     public void updateQuantity(String email, AddToCartRequest request) {
-        User user = userRepository.findByEmail(email).orElseThrow();
-        Cart cart = cartRepository.findByUser(user).orElseThrow();
-        Product product = productRepository.findById(request.getProductId()).orElseThrow();
-        CartItem item = cartItemRepository.findByCartAndProduct(cart, product).orElseThrow();
-
-        item.setQuantity(request.getQuantity());
-        cartItemRepository.save(item);
+        CartOperations.validateQuantity(request.getQuantity());
+        if (jdbcTemplate.update(SET_QUANTITY_SQL, request.getQuantity(), userId(email), request.getProductId()) == 0) {
+            throw new NoSuchElementException("Товара нет в корзине");
+        }
     }
 
     @Override
     public void clearCart(String email) {
-        User user = userRepository.findByEmail(email).orElseThrow();
-        Cart cart = cartRepository.findByUser(user).orElseThrow();
-        cartItemRepository.deleteAll(cart.getItems());
-        cart.getItems().clear();
-        cartRepository.save(cart);
+        jdbcTemplate.update(CLEAR_SQL, userId(email));
     }
 
     @Override
     public CartResponse getCart(String email) {
-        User user = userRepository.findByEmail(email).orElseThrow();
-        Cart cart = cartRepository.findByUser(user).orElseGet(() -> {
-            Cart newCart = new Cart(null, user, new ArrayList<>());
-            return cartRepository.save(newCart);
-        });
-
-        List<CartItemResponse> items = cart.getItems().stream().map(item ->
-                new CartItemResponse(
-                        item.getProduct().getId(),
-                        item.getProduct().getName(),
-                        item.getProduct().getImageUrl(),
-                        item.getQuantity(),
-                        item.getProduct().getPrice()
-                )
-        ).toList();
+        List<CartItemResponse> items = cartItemRepository.findResponsesByUserId(userId(email));
 
         BigDecimal total = items.stream()
                 .map(i -> i.getPricePerUnit().multiply(BigDecimal.valueOf(i.getQuantity())))
@@ -104,5 +113,70 @@ public class CartServiceImpl implements CartService {
 
         return new CartResponse(items, total);
     }
-}
 
+    // Строки корзины блокируются, операции применяются в памяти, в БД уходят только разницы двумя пакетами.
+    // Разница пишется приращением: строку, которую параллельно создало одиночное добавление, пакет не затрёт
+    @Override
+    @Transactional
+    public CartResponse applyBatch(String email, CartBatchRequest request) {
+        List<CartOperation> operations = CartOperations.validate(request);
+        Long cartId = lockCart(userId(email));
+
+        Map<Long, Integer> original = new LinkedHashMap<>();
+        jdbcTemplate.query(LOCK_ITEMS_SQL, rs -> {
+            original.put(rs.getLong("product_id"), rs.getInt("quantity"));
+        }, cartId);
+        Map<Long, Product> products = CartOperations.loadProducts(productRepository, original.keySet(), operations);
+        Map<Long, Integer> lines = new LinkedHashMap<>(original);
+        CartOperations.apply(lines, operations, products);
+
+        List<Object[]> removed = new ArrayList<>();
+        original.keySet().stream()
+                .filter(productId -> !lines.containsKey(productId))
+                .forEach(productId -> removed.add(new Object[]{cartId, productId}));
+        List<Object[]> changed = new ArrayList<>();
+        lines.forEach((productId, quantity) -> {
+            int delta = quantity - original.getOrDefault(productId, 0);
+            if (delta != 0) {
+                changed.add(new Object[]{cartId, productId, delta});
+            }
+        });
+        jdbcTemplate.batchUpdate(REMOVE_ITEM_SQL, removed);
+        jdbcTemplate.batchUpdate(ADD_ITEM_SQL, changed);
+        return CartOperations.toResponse(lines, products);
+    }
+
+    // Блокировка строки корзины не даёт двум оформлениям забрать одни и те же строки
+    @Override
+    @Transactional
+    public List<CartItemDto> takeForCheckout(String email) {
+        List<Long> cartIds = jdbcTemplate.queryForList(LOCK_CART_SQL, Long.class, userId(email));
+        if (cartIds.isEmpty()) {
+            return List.of();
+        }
+        Long cartId = cartIds.get(0);
+        List<CartItemDto> lines = jdbcTemplate.query(LOCK_ITEMS_SQL,
+                (rs, rowNum) -> new CartItemDto(rs.getLong("product_id"), rs.getInt("quantity")), cartId);
+        jdbcTemplate.update(REMOVE_ALL_SQL, cartId);
+        return lines;
+    }
+
+    private Long lockCart(Long userId) {
+        List<Long> ids = jdbcTemplate.queryForList(LOCK_CART_SQL, Long.class, userId);
+        if (!ids.isEmpty()) {
+            return ids.get(0);
+        }
+        jdbcTemplate.update(INSERT_CART_SQL, userId);
+        return jdbcTemplate.queryForObject(LOCK_CART_SQL, Long.class, userId);
+    }
+
+    private int upsertItem(Long userId, AddToCartRequest request) {
+        return jdbcTemplate.update(UPSERT_ITEM_SQL, request.getQuantity(), request.getProductId(), userId);
+    }
+
+    private Long userId(String email) {
+        return userRepository.findByEmail(email)
+                .map(User::getId)
+                .orElseThrow(() -> new UsernameNotFoundException("Пользователь не найден"));
+    }
+}
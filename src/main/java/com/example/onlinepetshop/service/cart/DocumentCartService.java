@@ -0,0 +1,164 @@
+package com.example.onlinepetshop.service.cart;
+
+import com.example.onlinepetshop.dto.cart.AddToCartRequest;
+import com.example.onlinepetshop.dto.cart.CartBatchRequest;
+import com.example.onlinepetshop.dto.cart.CartItemDto;
+import com.example.onlinepetshop.dto.cart.CartOperation;
+import com.example.onlinepetshop.dto.cart.CartResponse;
+import com.example.onlinepetshop.entity.Product;
+import com.example.onlinepetshop.entity.User;
+import com.example.onlinepetshop.repository.ProductRepository;
+import com.example.onlinepetshop.repository.UserRepository;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+// Корзина — одна строка cart: все позиции лежат в колонке document, поэтому чтение и запись — одна строка,
+// а товары для ответа подтягиваются одним findAllById. Правки идут под блокировкой строки корзины.
+// Корзины, оставшиеся от режимов db и write-behind (document = null), читаются из cart_item и переносятся при первой правке;
+// те режимы при старте возвращают документы обратно в cart_item (см. CartDocuments)
+@Service
+@ConditionalOnProperty(name = "cart.storage", havingValue = "document")
+@RequiredArgsConstructor
+public class DocumentCartService implements CartService {
+
+    private static final String READ_SQL = "select id, document from cart where user_id = ?";
+    private static final String LOCK_SQL = READ_SQL + " for update";
+    private static final String INSERT_CART_SQL =
+            "insert into cart (user_id, document) values (?, '[]') on duplicate key update user_id = user_id";
+    private static final String WRITE_SQL = "update cart set document = ? where id = ?";
+    private static final String LEGACY_ITEMS_SQL = "select product_id, quantity from cart_item where cart_id = ? order by id";
+    private static final String DROP_LEGACY_SQL = "delete from cart_item where cart_id = ?";
+
+    private record Row(Long id, String document) {
+    }
+
+    private static final RowMapper<Row> ROW_MAPPER = (rs, rowNum) -> new Row(rs.getLong("id"), rs.getString("document"));
+
+    private final UserRepository userRepository;
+    private final ProductRepository productRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final CartDocuments documents;
+
+    @Override
+    @Transactional
+    public void addToCart(String email, AddToCartRequest request) {
+        CartOperations.validateQuantity(request.getQuantity());
+        if (productRepository.findById(request.getProductId()).isEmpty()) {
+            throw new NoSuchElementException("Продукт не найден");
+        }
+        mutate(email, lines -> lines.merge(request.getProductId(), request.getQuantity(), Integer::sum));
+    }
+
+    @Override
+    @Transactional
+    public void removeFromCart(String email, Long productId) {
+        mutate(email, lines -> {
+            if (lines.remove(productId) == null) {
+                throw new NoSuchElementException("Товара нет в корзине");
+            }
+        });
+    }
+
+    @Override
+    @Transactional
+    public void updateQuantity(String email, AddToCartRequest request) {
+        CartOperations.validateQuantity(request.getQuantity());
+        mutate(email, lines -> {
+            if (!lines.containsKey(request.getProductId())) {
+                throw new NoSuchElementException("Товара нет в корзине");
+            }
+            lines.put(request.getProductId(), request.getQuantity());
+        });
+    }
+
+    @Override
+    @Transactional
+    public void clearCart(String email) {
+        mutate(email, Map::clear);
+    }
+
+    @Override
+    public CartResponse getCart(String email) {
+        List<Row> rows = jdbcTemplate.query(READ_SQL, ROW_MAPPER, userId(email));
+        Map<Long, Integer> lines = rows.isEmpty() ? Map.of() : lines(rows.get(0));
+        return CartOperations.toResponse(lines, CartOperations.loadProducts(productRepository, lines.keySet(), List.of()));
+    }
+
+    // Строки товаров, удалённых из каталога, при пакетной правке выбрасываются из документа
+    @Override
+    @Transactional
+    public CartResponse applyBatch(String email, CartBatchRequest request) {
+        List<CartOperation> operations = CartOperations.validate(request);
+        Row row = lock(userId(email));
+        Map<Long, Integer> lines = lines(row);
+        Map<Long, Product> products = CartOperations.loadProducts(productRepository, lines.keySet(), operations);
+        lines.keySet().retainAll(products.keySet());
+        CartOperations.apply(lines, operations, products);
+        write(row, lines);
+        return CartOperations.toResponse(lines, products);
+    }
+
+    @Override
+    @Transactional
+    public List<CartItemDto> takeForCheckout(String email) {
+        Row row = lock(userId(email));
+        Map<Long, Integer> lines = lines(row);
+        if (!lines.isEmpty()) {
+            write(row, Map.of());
+        }
+        return lines.entrySet().stream()
+                .map(line -> new CartItemDto(line.getKey(), line.getValue()))
+                .toList();
+    }
+
+    private void mutate(String email, Consumer<Map<Long, Integer>> change) {
+        Row row = lock(userId(email));
+        Map<Long, Integer> lines = lines(row);
+        change.accept(lines);
+        write(row, lines);
+    }
+
+    private Row lock(Long userId) {
+        List<Row> rows = jdbcTemplate.query(LOCK_SQL, ROW_MAPPER, userId);
+        if (rows.isEmpty()) {
+            jdbcTemplate.update(INSERT_CART_SQL, userId);
+            rows = jdbcTemplate.query(LOCK_SQL, ROW_MAPPER, userId);
+        }
+        return rows.get(0);
+    }
+
+    private Map<Long, Integer> lines(Row row) {
+        if (row.document() != null) {
+            return documents.fromJson(row.document());
+        }
+        Map<Long, Integer> lines = new LinkedHashMap<>();
+        jdbcTemplate.query(LEGACY_ITEMS_SQL, rs -> {
+            lines.merge(rs.getLong("product_id"), rs.getInt("quantity"), Integer::sum);
+        }, row.id());
+        return lines;
+    }
+
+    private void write(Row row, Map<Long, Integer> lines) {
+        jdbcTemplate.update(WRITE_SQL, documents.toJson(lines), row.id());
+        if (row.document() == null) {
+            jdbcTemplate.update(DROP_LEGACY_SQL, row.id());
+        }
+    }
+
+    private Long userId(String email) {
+        return userRepository.findByEmail(email)
+                .map(User::getId)
+                .orElseThrow(() -> new UsernameNotFoundException("Пользователь не найден"));
+    }
+}
@@ -0,0 +1,478 @@
+package com.example.onlinepetshop.service.cart;
+
+import com.example.onlinepetshop.dto.cart.AddToCartRequest;
+import com.example.onlinepetshop.dto.cart.CartBatchRequest;
+import com.example.onlinepetshop.dto.cart.CartItemDto;
+import com.example.onlinepetshop.dto.cart.CartOperation;
+import com.example.onlinepetshop.dto.cart.CartResponse;
+import com.example.onlinepetshop.entity.Product;
+import com.example.onlinepetshop.entity.User;
+import com.example.onlinepetshop.repository.ProductRepository;
+import com.example.onlinepetshop.repository.UserRepository;
+import com.example.onlinepetshop.service.product.ProductChangedEvent;
+import com.example.onlinepetshop.service.user.UserEmailChangedEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+// Корзины активных пользователей живут в памяти и читаются оттуда; изменённые сбрасываются в БД пачками по таймеру.
+// Каждая правка до ответа клиенту пишется в журнал, поэтому после падения процесса несброшенные корзины восстанавливаются.
+// Рассчитан на один экземпляр приложения: при нескольких экземплярах корзины разойдутся
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "cart.storage", havingValue = "write-behind")
+@RequiredArgsConstructor
+public class WriteBehindCartService implements CartService {
+
+    private static final String LOAD_SQL =
+            "select c.id as cart_id, i.product_id, i.quantity from cart c left join cart_item i on i.cart_id = c.id " +
+            "where c.id = (select min(id) from cart where user_id = ?) order by i.id";
+    private static final String INSERT_CART_SQL = "insert into cart (user_id) values (?)";
+    private static final String FIND_CART_SQL = "select min(id) from cart where user_id = ?";
+    private static final String INSERT_ITEM_SQL = "insert into cart_item (cart_id, product_id, quantity) values (?, ?, ?)";
+    private static final String ORDER_EXISTS_SQL = "select count(*) from orders where id = ?";
+
+    private static final class CartState {
+        final long userId;
+        Long cartId;
+        final Map<Long, Integer> lines = new LinkedHashMap<>();
+        long version;
+        long flushedVersion;
+        volatile long lastAccess = System.currentTimeMillis();
+        boolean evicted;
+        boolean checkingOut;
+        Long checkoutOrderId;
+        CartJournal.Checkout pendingCheckout;
+
+        CartState(long userId) {
+            this.userId = userId;
+        }
+
+        boolean isDirty() {
+            return version != flushedVersion;
+        }
+    }
+
+    private record Snapshot(CartState state, Long cartId, Map<Long, Integer> lines, long version) {
+    }
+
+    private final UserRepository userRepository;
+    private final ProductRepository productRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CartDocuments documents;
+
+    @Value("${cart.write-behind.max-carts:10000}")
+    private int maxCarts;
+
+    @Value("${cart.write-behind.idle-timeout:PT30M}")
+    private Duration idleTimeout;
+
+    @Value("${cart.write-behind.journal-dir:data/cart-journal}")
+    private Path journalDir;
+
+    // Без fsync журнал переживает падение процесса, но не ОС; с fsync каждая правка ждёт диск
+    @Value("${cart.write-behind.journal-fsync:false}")
+    private boolean journalFsync;
+
+    private final Map<Long, CartState> carts = new ConcurrentHashMap<>();
+    private final Map<String, Long> userIds = new ConcurrentHashMap<>();
+    private final Object flushLock = new Object();
+    private CartJournal journal;
+
+    @PostConstruct
+    public void recover() {
+        // Сначала корзины из режима document: журнал ниже переписывает свои корзины целиком поверх них
+        documents.restoreItems();
+        journal = new CartJournal(journalDir, journalFsync);
+        CartJournal.Replay replay = journal.replay();
+        Map<Long, Map<Long, Integer>> pending = new LinkedHashMap<>(replay.carts());
+        // Заказ зафиксирован, а списание из корзины до журнала не дошло — списываем сейчас
+        replay.checkouts().forEach((userId, checkout) -> {
+            if (jdbcTemplate.queryForObject(ORDER_EXISTS_SQL, Long.class, checkout.orderId()) == 0) {
+                return;
+            }
+            Map<Long, Integer> lines = new LinkedHashMap<>(pending.containsKey(userId) ? pending.get(userId) : load(userId).lines);
+            subtract(lines, checkout.lines());
+            pending.put(userId, lines);
+            log.info("Списано из корзины пользователя {} по заказу {} после сбоя", userId, checkout.orderId());
+        });
+        if (!pending.isEmpty()) {
+            List<Snapshot> snapshots = new ArrayList<>(pending.size());
+            pending.forEach((userId, lines) -> snapshots.add(new Snapshot(new CartState(userId), null, lines, 0)));
+            write(snapshots);
+            log.info("Из журнала восстановлено корзин: {}", pending.size());
+        }
+        journal.deleteUpTo(Long.MAX_VALUE);
+        journal.open();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+        journal.close();
+    }
+
+    @Override
+    public void addToCart(String email, AddToCartRequest request) {
+        CartOperations.validateQuantity(request.getQuantity());
+        if (!productRepository.existsById(request.getProductId())) {
+            throw new NoSuchElementException("Продукт не найден");
+        }
+        mutate(email, lines -> lines.merge(request.getProductId(), request.getQuantity(), Integer::sum));
+    }
+
+    @Override
+    public void removeFromCart(String email, Long productId) {
+        mutate(email, lines -> {
+            if (lines.remove(productId) == null) {
+                throw new NoSuchElementException("Товара нет в корзине");
+            }
+        });
+    }
+
+    @Override
+    public void updateQuantity(String email, AddToCartRequest request) {
+        CartOperations.validateQuantity(request.getQuantity());
+        mutate(email, lines -> {
+            if (!lines.containsKey(request.getProductId())) {
+                throw new NoSuchElementException("Товара нет в корзине");
+            }
+            lines.put(request.getProductId(), request.getQuantity());
+        });
+    }
+
+    @Override
+    public void clearCart(String email) {
+        mutate(email, Map::clear);
+    }
+
+    @Override
+    public CartResponse getCart(String email) {
+        Map<Long, Integer> lines = read(email);
+        return CartOperations.toResponse(lines, CartOperations.loadProducts(productRepository, lines.keySet(), List.of()));
+    }
+
+    // Товары грузятся до захвата корзины; операции применяются к копии строк и подменяют их одной записью в журнал
+    @Override
+    public CartResponse applyBatch(String email, CartBatchRequest request) {
+        List<CartOperation> operations = CartOperations.validate(request);
+        Map<Long, Product> products = CartOperations.loadProducts(productRepository, read(email).keySet(), operations);
+        Map<Long, Integer> lines = mutate(email, current -> {
+            Map<Long, Integer> updated = new LinkedHashMap<>(current);
+            CartOperations.apply(updated, operations, products);
+            current.clear();
+            current.putAll(updated);
+        });
+        // Между чтением и правкой в корзину мог попасть другой товар — тогда каталог дочитывается заново
+        return CartOperations.toResponse(lines, products.keySet().containsAll(lines.keySet())
+                ? products
+                : CartOperations.loadProducts(productRepository, lines.keySet(), List.of()));
+    }
+
+    // Корзина в памяти не откатывается вместе с транзакцией заказа, поэтому строки списываются только после фиксации.
+    // Пока заказ оформляется, повторное оформление той же корзины отклоняется, а сама корзина не вытесняется.
+    // Перед фиксацией в журнал пишется метка с номером заказа: если процесс упадёт после фиксации, но до списания,
+    // recover() найдёт заказ в БД и спишет строки сам. Номер заказа передаёт checkedOut()
+    @Override
+    public List<CartItemDto> takeForCheckout(String email) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Оформление заказа должно выполняться в транзакции");
+        }
+        Snapshot taken = beginCheckout(email);
+        CartState state = taken.state();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                if (taken.lines().isEmpty()) {
+                    return;
+                }
+                synchronized (state) {
+                    if (state.checkoutOrderId == null) {
+                        return;
+                    }
+                    state.pendingCheckout = new CartJournal.Checkout(state.checkoutOrderId, taken.lines());
+                    journal.appendCheckout(state.userId, state.pendingCheckout);
+                }
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                synchronized (state) {
+                    state.checkingOut = false;
+                    state.checkoutOrderId = null;
+                    boolean marked = state.pendingCheckout != null;
+                    state.pendingCheckout = null;
+                    if (status == STATUS_COMMITTED && !taken.lines().isEmpty()) {
+                        subtract(state.lines, taken.lines());
+                        state.version++;
+                    } else if (!marked) {
+                        return;
+                    }
+                    journal.appendCheckoutDone(state.userId, state.lines);
+                }
+            }
+        });
+        return taken.lines().entrySet().stream()
+                .map(line -> new CartItemDto(line.getKey(), line.getValue()))
+                .toList();
+    }
+
+    // Оформляемая корзина не вытесняется, поэтому state() вернёт тот же объект, что и в takeForCheckout
+    @Override
+    public void checkedOut(String email, Long orderId) {
+        CartState state = state(email);
+        synchronized (state) {
+            if (state.checkingOut) {
+                state.checkoutOrderId = orderId;
+            }
+        }
+    }
+
+    // Удалённый товар убирается из корзин в памяти; при сбросе его строки всё равно отфильтровываются
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!event.isDeleted()) {
+            return;
+        }
+        for (CartState state : carts.values()) {
+            synchronized (state) {
+                if (!state.evicted && state.lines.remove(event.productId()) != null) {
+                    state.version++;
+                    journal.append(state.userId, state.lines);
+                }
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserEmailChanged(UserEmailChangedEvent event) {
+        userIds.remove(event.previousEmail());
+    }
+
+    @Scheduled(fixedDelayString = "${cart.write-behind.flush-interval:PT5S}")
+    public void flush() {
+        synchronized (flushLock) {
+            // Сегмент закрывается до снимка: всё, что в нём записано, уже есть в памяти и попадёт в этот сброс.
+            // Метки незавершённых оформлений переносятся в новый сегмент, иначе удалились бы вместе со старым
+            long sealed = journal.rotate();
+            List<Snapshot> snapshots = new ArrayList<>();
+            for (CartState state : carts.values()) {
+                synchronized (state) {
+                    if (state.pendingCheckout != null) {
+                        journal.appendCheckout(state.userId, state.pendingCheckout);
+                    }
+                    if (!state.evicted && state.isDirty()) {
+                        snapshots.add(new Snapshot(state, state.cartId, new LinkedHashMap<>(state.lines), state.version));
+                    }
+                }
+            }
+            if (!snapshots.isEmpty()) {
+                write(snapshots);
+            }
+            journal.deleteUpTo(sealed);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${cart.write-behind.eviction-interval:PT1M}")
+    public void evictIdle() {
+        long threshold = System.currentTimeMillis() - idleTimeout.toMillis();
+        evict(state -> state.lastAccess < threshold, Integer.MAX_VALUE);
+    }
+
+    // Списываем ровно заказанное: добавленное во время оформления остаётся в корзине
+    private static void subtract(Map<Long, Integer> lines, Map<Long, Integer> taken) {
+        taken.forEach((productId, quantity) -> lines.computeIfPresent(productId,
+                (id, current) -> current > quantity ? current - quantity : null));
+    }
+
+    private Map<Long, Integer> mutate(String email, Consumer<Map<Long, Integer>> change) {
+        while (true) {
+            CartState state = state(email);
+            synchronized (state) {
+                if (state.evicted) {
+                    continue;
+                }
+                change.accept(state.lines);
+                state.version++;
+                state.lastAccess = System.currentTimeMillis();
+                journal.append(state.userId, state.lines);
+                return new LinkedHashMap<>(state.lines);
+            }
+        }
+    }
+
+    private Snapshot beginCheckout(String email) {
+        while (true) {
+            CartState state = state(email);
+            synchronized (state) {
+                if (state.evicted) {
+                    continue;
+                }
+                if (state.checkingOut) {
+                    throw new IllegalStateException("Заказ по этой корзине уже оформляется");
+                }
+                state.checkingOut = true;
+                state.lastAccess = System.currentTimeMillis();
+                return new Snapshot(state, state.cartId, new LinkedHashMap<>(state.lines), state.version);
+            }
+        }
+    }
+
+    private Map<Long, Integer> read(String email) {
+        while (true) {
+            CartState state = state(email);
+            synchronized (state) {
+                if (state.evicted) {
+                    continue;
+                }
+                state.lastAccess = System.currentTimeMillis();
+                return new LinkedHashMap<>(state.lines);
+            }
+        }
+    }
+
+    private CartState state(String email) {
+        Long userId = userIds.get(email);
+        if (userId == null) {
+            userId = userRepository.findByEmail(email)
+                    .map(User::getId)
+                    .orElseThrow(() -> new UsernameNotFoundException("Пользователь не найден"));
+            userIds.put(email, userId);
+        }
+        CartState state = carts.get(userId);
+        if (state != null) {
+            return state;
+        }
+        if (carts.size() >= maxCarts) {
+            makeRoom();
+        }
+        // Загрузка идёт вне карты: запрос к БД не держит блокировку соседних ключей
+        CartState loaded = load(userId);
+        CartState existing = carts.putIfAbsent(userId, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    private CartState load(Long userId) {
+        CartState state = new CartState(userId);
+        jdbcTemplate.query(LOAD_SQL, rs -> {
+            state.cartId = rs.getLong("cart_id");
+            Long productId = rs.getObject("product_id", Long.class);
+            if (productId != null) {
+                state.lines.merge(productId, rs.getInt("quantity"), Integer::sum);
+            }
+        }, userId);
+        return state;
+    }
+
+    // Сначала вытесняются давно не использованные чистые корзины; если чистых нет — сбрасываем и повторяем
+    private void makeRoom() {
+        int excess = carts.size() - maxCarts + 1;
+        if (evict(state -> true, excess) < excess) {
+            flush();
+            evict(state -> true, excess);
+        }
+    }
+
+    private int evict(Predicate<CartState> condition, int limit) {
+        List<CartState> candidates = carts.values().stream()
+                .filter(condition)
+                .sorted(Comparator.comparingLong(state -> state.lastAccess))
+                .toList();
+        int evicted = 0;
+        for (CartState state : candidates) {
+            if (evicted >= limit) {
+                break;
+            }
+            synchronized (state) {
+                if (!state.evicted && !state.isDirty() && !state.checkingOut) {
+                    state.evicted = true;
+                    carts.remove(state.userId, state);
+                    evicted++;
+                }
+            }
+        }
+        return evicted;
+    }
+
+    // Корзина переписывается целиком: строки удаляются и вставляются заново одной пачкой на все корзины
+    private void write(List<Snapshot> snapshots) {
+        Set<Long> productIds = new HashSet<>();
+        snapshots.forEach(snapshot -> productIds.addAll(snapshot.lines().keySet()));
+        Set<Long> existing = productIds.isEmpty() ? Set.of() : productRepository.findAllById(productIds).stream()
+                .map(Product::getId)
+                .collect(Collectors.toSet());
+
+        List<Long> cartIds = transactionTemplate.execute(status -> {
+            List<Long> ids = snapshots.stream()
+                    .map(snapshot -> snapshot.cartId() != null ? snapshot.cartId() : cartId(snapshot.state().userId))
+                    .toList();
+            jdbcTemplate.batchUpdate("delete from cart_item where cart_id = ?", ids.stream().map(id -> new Object[]{id}).toList());
+
+            List<Object[]> inserts = new ArrayList<>();
+            for (int i = 0; i < snapshots.size(); i++) {
+                Long cartId = ids.get(i);
+                snapshots.get(i).lines().forEach((productId, quantity) -> {
+                    if (existing.contains(productId)) {
+                        inserts.add(new Object[]{cartId, productId, quantity});
+                    }
+                });
+            }
+            jdbcTemplate.batchUpdate(INSERT_ITEM_SQL, inserts);
+            return ids;
+        });
+
+        for (int i = 0; i < snapshots.size(); i++) {
+            Snapshot snapshot = snapshots.get(i);
+            CartState state = snapshot.state();
+            synchronized (state) {
+                state.cartId = cartIds.get(i);
+                state.flushedVersion = Math.max(state.flushedVersion, snapshot.version());
+            }
+        }
+    }
+
+    private Long cartId(long userId) {
+        Long existing = jdbcTemplate.queryForObject(FIND_CART_SQL, Long.class, userId);
+        if (existing != null) {
+            return existing;
+        }
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(INSERT_CART_SQL, Statement.RETURN_GENERATED_KEYS);
+            ps.setLong(1, userId);
+            return ps;
+        }, keyHolder);
+        return keyHolder.getKey().longValue();
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.onlinepetshop.service.catalog;
+
+import com.example.onlinepetshop.dto.CursorPageResponse;
+import com.example.onlinepetshop.dto.product.FacetedProductResponse;
+import com.example.onlinepetshop.dto.product.ProductFacetQuery;
+import com.example.onlinepetshop.dto.product.ProductSuggestion;
+import com.fasterxml.jackson.databind.util.RawValue;
+
+import java.util.List;
+
+public interface CatalogService {
+    Versioned<CursorPageResponse<RawValue>> getProducts(Long categoryId, String cursor, int limit, String sort, String direction);
+
+    Versioned<RawValue> getProduct(Long id);
+
+    List<RawValue> searchByName(String name, boolean fuzzy, int limit);
+
+    List<ProductSuggestion> suggest(String prefix, int limit);
+
+    FacetedProductResponse facetedSearch(ProductFacetQuery query);
+
+    RawValue getCategories();
+}
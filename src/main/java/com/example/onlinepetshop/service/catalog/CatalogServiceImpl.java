@@ -0,0 +1,201 @@
+package com.example.onlinepetshop.service.catalog;
+
+import com.example.onlinepetshop.dto.CursorPageResponse;
+import com.example.onlinepetshop.dto.product.FacetedProductResponse;
+import com.example.onlinepetshop.dto.product.ProductFacetQuery;
+import com.example.onlinepetshop.dto.product.ProductResponse;
+import com.example.onlinepetshop.dto.product.ProductSuggestion;
+import com.example.onlinepetshop.entity.Product;
+import com.example.onlinepetshop.repository.CategoryRepository;
+import com.example.onlinepetshop.repository.ProductRepository;
+import com.example.onlinepetshop.service.category.CategoryChangedEvent;
+import com.example.onlinepetshop.service.product.ProductChangedEvent;
+import com.example.onlinepetshop.service.product.ProductCursor;
+import com.example.onlinepetshop.service.product.ProductsImportedEvent;
+import com.example.onlinepetshop.service.product.ProductsStockChangedEvent;
+import com.example.onlinepetshop.service.product.search.ProductFacetIndex;
+import com.example.onlinepetshop.service.product.search.ProductSearchIndex;
+import com.example.onlinepetshop.service.product.search.ProductSuggester;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.RawValue;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+@Service
+@RequiredArgsConstructor
+public class CatalogServiceImpl implements CatalogService {
+
+    private static final int BUILD_BATCH_SIZE = 5000;
+
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final ProductSearchIndex searchIndex;
+    private final ProductSuggester suggester;
+    private final ProductFacetIndex facetIndex;
+    private final ObjectMapper objectMapper;
+    private final CatalogVersion catalogVersion;
+
+    @Value("${catalog.page.max-size:100}")
+    private int maxPageSize;
+
+    private volatile CatalogSnapshot snapshot;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        current();
+    }
+
+    @EventListener
+    public synchronized void onProductChanged(ProductChangedEvent event) {
+        CatalogSnapshot current = current();
+        snapshot = event.isDeleted()
+                ? current.withoutProduct(event.productId())
+                : current.withProduct(toEntry(event.product()));
+    }
+
+    @EventListener
+    public synchronized void onStockChanged(ProductsStockChangedEvent event) {
+        for (ProductResponse product : event.products()) {
+            CatalogSnapshot.Entry entry = toEntry(product);
+            if (!current().replaceCard(entry)) {
+                snapshot = current().withProduct(entry);
+            }
+        }
+    }
+
+    @EventListener
+    public synchronized void onProductsImported(ProductsImportedEvent event) {
+        snapshot = load();
+    }
+
+    @EventListener
+    public synchronized void onCategoryChanged(CategoryChangedEvent event) {
+        List<CatalogSnapshot.Entry> products = productRepository.findByCategoryId(event.categoryId()).stream()
+                .map(product -> toEntry(ProductResponse.from(product)))
+                .toList();
+        snapshot = current().withCategories(serialize(categoryRepository.findAll()), products);
+    }
+
+    @Override
+    public Versioned<CursorPageResponse<RawValue>> getProducts(Long categoryId, String cursor, int limit, String sort, String direction) {
+        // Версия снимается до чтения снимка: ответ может оказаться новее ETag, но не старше
+        long version = catalogVersion.version();
+        ProductCursor position = ProductCursor.resolve(cursor, sort, direction);
+        CatalogSnapshot.Page page = current().page(categoryId, position, pageSize(limit));
+
+        // Метка и JSON читаются одной парой, поэтому ETag страницы меняется только при изменении её товаров
+        List<RawValue> items = new ArrayList<>(page.items().size());
+        long stamp = 0;
+        for (CatalogSnapshot.Entry entry : page.items()) {
+            CatalogSnapshot.Entry.Card card = entry.card();
+            items.add(card.json());
+            stamp = stamp * 31 + entry.id();
+            stamp = stamp * 31 + card.stamp();
+        }
+        String nextCursor = null;
+        if (page.hasNext()) {
+            CatalogSnapshot.Entry last = page.items().get(page.items().size() - 1);
+            nextCursor = position.next(last.id(), last.price(), last.name());
+        }
+        return new Versioned<>(new CursorPageResponse<>(items, nextCursor, nextCursor != null),
+                catalogVersion.etag(version, stamp));
+    }
+
+    @Override
+    public Versioned<RawValue> getProduct(Long id) {
+        long version = catalogVersion.version();
+        CatalogSnapshot.Entry entry = current().get(id);
+        if (entry == null) {
+            throw new IllegalArgumentException("Товар не найден");
+        }
+        CatalogSnapshot.Entry.Card card = entry.card();
+        return new Versioned<>(card.json(), catalogVersion.etag(version, card.stamp()));
+    }
+
+    @Override
+    public List<RawValue> searchByName(String name, boolean fuzzy, int limit) {
+        List<Long> ids = searchIndex.isReady()
+                ? searchIndex.search(name, fuzzy, pageSize(limit))
+                : productRepository.findByNameContainingIgnoreCase(name).stream().map(Product::getId).toList();
+        return toJson(ids);
+    }
+
+    @Override
+    public List<ProductSuggestion> suggest(String prefix, int limit) {
+        return suggester.suggest(prefix, limit);
+    }
+
+    @Override
+    public FacetedProductResponse facetedSearch(ProductFacetQuery query) {
+        query.setLimit(pageSize(query.getLimit()));
+        ProductFacetIndex.Result result = facetIndex.query(query);
+        return new FacetedProductResponse(
+                toJson(result.productIds()),
+                result.total(),
+                result.categories(),
+                result.priceRanges(),
+                result.availability()
+        );
+    }
+
+    @Override
+    public RawValue getCategories() {
+        return current().categoriesJson();
+    }
+
+    private CatalogSnapshot current() {
+        CatalogSnapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    snapshot = load();
+                }
+                current = snapshot;
+            }
+        }
+        return current;
+    }
+
+    private CatalogSnapshot load() {
+        List<CatalogSnapshot.Entry> entries = new ArrayList<>();
+        productRepository.scrollAll(BUILD_BATCH_SIZE, batch -> batch.forEach(p -> entries.add(toEntry(p))));
+        return CatalogSnapshot.of(entries, serialize(categoryRepository.findAll()));
+    }
+
+    private CatalogSnapshot.Entry toEntry(ProductResponse product) {
+        Long categoryId = product.getCategory() == null ? null : product.getCategory().getId();
+        return new CatalogSnapshot.Entry(product.getId(), product.getName(), product.getPrice(), categoryId, serialize(product));
+    }
+
+    private List<RawValue> toJson(List<Long> ids) {
+        CatalogSnapshot current = current();
+        return ids.stream()
+                .map(current::get)
+                .filter(Objects::nonNull)
+                .map(CatalogSnapshot.Entry::json)
+                .toList();
+    }
+
+    private RawValue serialize(Object value) {
+        try {
+            return new RawValue(objectMapper.writeValueAsString(value));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось сериализовать каталог", e);
+        }
+    }
+
+    private int pageSize(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Размер страницы должен быть положительным");
+        }
+        return Math.min(limit, maxPageSize);
+    }
+}
@@ -0,0 +1,255 @@
+package com.example.onlinepetshop.service.catalog;
+
+import com.example.onlinepetshop.service.product.ProductCursor;
+import com.example.onlinepetshop.service.product.ProductSort;
+import com.fasterxml.jackson.databind.util.RawValue;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Неизменяемый снимок каталога; после правок администратора собирается новый и подменяется целиком
+public final class CatalogSnapshot {
+
+    private static final AtomicLong STAMPS = new AtomicLong();
+
+    // Ключи сортировки неизменяемы; JSON карточки подменяется на месте, когда меняется только остаток.
+    // Метка уникальна для каждого состояния карточки и меняется вместе с JSON — по ней считаются ETag
+    public static final class Entry {
+        private final long id;
+        private final String name;
+        private final BigDecimal price;
+        private final Long categoryId;
+        private volatile Card card;
+
+        record Card(RawValue json, long stamp) {
+        }
+
+        public Entry(long id, String name, BigDecimal price, Long categoryId, RawValue json) {
+            this.id = id;
+            this.name = name;
+            this.price = price;
+            this.categoryId = categoryId;
+            this.card = new Card(json, STAMPS.incrementAndGet());
+        }
+
+        public long id() {
+            return id;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public BigDecimal price() {
+            return price;
+        }
+
+        public Long categoryId() {
+            return categoryId;
+        }
+
+        public RawValue json() {
+            return card.json();
+        }
+
+        // JSON и метка читаются одной парой
+        Card card() {
+            return card;
+        }
+    }
+
+    public record Page(List<Entry> items, boolean hasNext) {
+    }
+
+    // Товары без цены/названия хранятся в хвосте массива и в любом направлении отдаются после остальных
+    private static final Map<ProductSort, Comparator<Entry>> ORDERS = Map.of(
+            ProductSort.ID, Comparator.comparingLong(Entry::id),
+            ProductSort.PRICE, Comparator.comparing(Entry::price, Comparator.nullsLast(Comparator.naturalOrder()))
+                    .thenComparingLong(Entry::id),
+            ProductSort.NAME, Comparator.comparing(Entry::name, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER))
+                    .thenComparingLong(Entry::id)
+    );
+
+    private final Map<Long, Entry> byId;
+    private final Map<ProductSort, Entry[]> orderings;
+    private final Map<Long, Map<ProductSort, Entry[]>> orderingsByCategory;
+    private final RawValue categoriesJson;
+
+    private CatalogSnapshot(Map<Long, Entry> byId, RawValue categoriesJson) {
+        this.byId = byId;
+        this.categoriesJson = categoriesJson;
+        this.orderings = sorted(byId.values());
+
+        Map<Long, List<Entry>> grouped = new HashMap<>();
+        byId.values().forEach(e -> grouped.computeIfAbsent(e.categoryId(), id -> new ArrayList<>()).add(e));
+        Map<Long, Map<ProductSort, Entry[]>> perCategory = new HashMap<>();
+        grouped.forEach((categoryId, entries) -> perCategory.put(categoryId, sorted(entries)));
+        this.orderingsByCategory = perCategory;
+    }
+
+    private CatalogSnapshot(Map<Long, Entry> byId, Map<ProductSort, Entry[]> orderings,
+                            Map<Long, Map<ProductSort, Entry[]>> orderingsByCategory, RawValue categoriesJson) {
+        this.byId = byId;
+        this.orderings = orderings;
+        this.orderingsByCategory = orderingsByCategory;
+        this.categoriesJson = categoriesJson;
+    }
+
+    public static CatalogSnapshot of(Collection<Entry> entries, RawValue categoriesJson) {
+        Map<Long, Entry> byId = new LinkedHashMap<>();
+        entries.forEach(e -> byId.put(e.id(), e));
+        return new CatalogSnapshot(byId, categoriesJson);
+    }
+
+    public CatalogSnapshot withProduct(Entry entry) {
+        Map<Long, Entry> copy = new LinkedHashMap<>(byId);
+        Entry previous = copy.put(entry.id(), entry);
+        if (previous != null && sameKeys(previous, entry)) {
+            // Ключи сортировки не изменились (например, только остаток) — подменяем запись на тех же позициях без пересортировки
+            Map<Long, Map<ProductSort, Entry[]>> perCategory = new HashMap<>(orderingsByCategory);
+            perCategory.put(entry.categoryId(), replaced(orderingsByCategory.get(entry.categoryId()), previous, entry));
+            return new CatalogSnapshot(copy, replaced(orderings, previous, entry), perCategory, categoriesJson);
+        }
+        return new CatalogSnapshot(copy, categoriesJson);
+    }
+
+    // Записи с теми же ключами только получают новый JSON без копирования снимка; возвращает false, если ключи
+    // разошлись (например, событие правки администратора ещё не пришло) и запись надо подменять через withProduct
+    public boolean replaceCard(Entry entry) {
+        Entry current = byId.get(entry.id());
+        if (current == null || !sameKeys(current, entry)) {
+            return false;
+        }
+        current.card = new Entry.Card(entry.json(), STAMPS.incrementAndGet());
+        return true;
+    }
+
+    public CatalogSnapshot withoutProduct(long id) {
+        Map<Long, Entry> copy = new LinkedHashMap<>(byId);
+        copy.remove(id);
+        return new CatalogSnapshot(copy, categoriesJson);
+    }
+
+    public CatalogSnapshot withCategories(RawValue json) {
+        return new CatalogSnapshot(byId, json);
+    }
+
+    // Вместе со списком категорий подменяются записи товаров, в JSON которых встроено название категории
+    public CatalogSnapshot withCategories(RawValue json, Collection<Entry> products) {
+        Map<Long, Entry> copy = new LinkedHashMap<>(byId);
+        products.forEach(e -> copy.put(e.id(), e));
+        return new CatalogSnapshot(copy, json);
+    }
+
+    public Entry get(long id) {
+        return byId.get(id);
+    }
+
+    public RawValue categoriesJson() {
+        return categoriesJson;
+    }
+
+    public Page page(Long categoryId, ProductCursor cursor, int limit) {
+        Entry[] order = categoryId == null
+                ? orderings.get(cursor.sort())
+                : orderingsByCategory.getOrDefault(categoryId, Map.of()).get(cursor.sort());
+        if (order == null) {
+            return new Page(List.of(), false);
+        }
+
+        // Обход идёт по логическим позициям: при DESC сначала записи с ключом от конца к началу, затем хвост без ключа так же
+        boolean ascending = cursor.direction() == Sort.Direction.ASC;
+        int keyed = keyedCount(cursor.sort(), order);
+        int start;
+        if (cursor.isFirstPage()) {
+            start = 0;
+        } else {
+            Entry probe = new Entry(cursor.lastId(), cursor.sort() == ProductSort.NAME ? (String) cursor.lastValue() : null,
+                    cursor.sort() == ProductSort.PRICE ? (BigDecimal) cursor.lastValue() : null, null, null);
+            int position = Arrays.binarySearch(order, probe, ORDERS.get(cursor.sort()));
+            if (position >= 0) {
+                start = logical(position, keyed, order.length, ascending) + 1;
+            } else if (ascending) {
+                start = -position - 1;
+            } else {
+                int insertion = -position - 1;
+                start = hasKey(cursor.sort(), probe) ? keyed - insertion : keyed + order.length - insertion;
+            }
+        }
+
+        List<Entry> items = new ArrayList<>(Math.min(limit, order.length));
+        int i = start;
+        for (; i < order.length && items.size() < limit; i++) {
+            items.add(order[ascending ? i : logical(i, keyed, order.length, false)]);
+        }
+        return new Page(items, i < order.length);
+    }
+
+    // При DESC отображение логической позиции в индекс массива и обратно совпадает: оба сегмента просто разворачиваются
+    private static int logical(int index, int keyed, int length, boolean ascending) {
+        if (ascending) {
+            return index;
+        }
+        return index < keyed ? keyed - 1 - index : keyed + length - 1 - index;
+    }
+
+    // Число записей с ключом: они стоят перед хвостом без ключа
+    private static int keyedCount(ProductSort sort, Entry[] order) {
+        int low = 0;
+        int high = order.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (hasKey(sort, order[middle])) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static boolean sameKeys(Entry a, Entry b) {
+        return Objects.equals(a.name(), b.name())
+                && Objects.equals(a.categoryId(), b.categoryId())
+                && (a.price() == null ? b.price() == null : b.price() != null && a.price().compareTo(b.price()) == 0);
+    }
+
+    private static Map<ProductSort, Entry[]> replaced(Map<ProductSort, Entry[]> source, Entry previous, Entry entry) {
+        Map<ProductSort, Entry[]> result = new EnumMap<>(ProductSort.class);
+        source.forEach((sort, order) -> {
+            Entry[] copy = order.clone();
+            copy[Arrays.binarySearch(order, previous, ORDERS.get(sort))] = entry;
+            result.put(sort, copy);
+        });
+        return result;
+    }
+
+    private static boolean hasKey(ProductSort sort, Entry entry) {
+        return switch (sort) {
+            case PRICE -> entry.price() != null;
+            case NAME -> entry.name() != null;
+            case ID -> true;
+        };
+    }
+
+    private static Map<ProductSort, Entry[]> sorted(Collection<Entry> entries) {
+        Map<ProductSort, Entry[]> result = new EnumMap<>(ProductSort.class);
+        for (ProductSort sort : ProductSort.values()) {
+            Entry[] order = entries.toArray(Entry[]::new);
+            Arrays.sort(order, ORDERS.get(sort));
+            result.put(sort, order);
+        }
+        return result;
+    }
+}
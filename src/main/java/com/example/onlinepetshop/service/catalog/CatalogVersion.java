@@ -0,0 +1,39 @@
+package com.example.onlinepetshop.service.catalog;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Версия публичного каталога для условных GET; эпоха запуска в ETag не даёт совпасть счётчикам после рестарта.
+// Поднимается правками структуры каталога; изменения одних остатков её не трогают — они видны по меткам записей снимка
+@Component
+public class CatalogVersion {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong version = new AtomicLong();
+    private volatile long lastModified = Instant.now().truncatedTo(ChronoUnit.SECONDS).toEpochMilli();
+
+    public void bump() {
+        version.incrementAndGet();
+        lastModified = Instant.now().truncatedTo(ChronoUnit.SECONDS).toEpochMilli();
+    }
+
+    public String etag() {
+        return "\"" + epoch + "-" + version.get() + "\"";
+    }
+
+    public long version() {
+        return version.get();
+    }
+
+    // ETag ответа о товарах: версия каталога, снятая до чтения снимка, плюс свёртка меток вошедших в ответ записей
+    public String etag(long version, long contentStamp) {
+        return "\"" + epoch + "-" + version + "-" + Long.toString(contentStamp, 36) + "\"";
+    }
+
+    public long lastModified() {
+        return lastModified;
+    }
+}
@@ -0,0 +1,5 @@
+package com.example.onlinepetshop.service.catalog;
+
+// Ответ каталога вместе с ETag, посчитанным по тем же записям снимка, из которых он собран
+public record Versioned<T>(T body, String etag) {
+}
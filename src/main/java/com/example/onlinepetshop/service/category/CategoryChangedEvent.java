@@ -0,0 +1,3 @@
+package com.example.onlinepetshop.service.category;
+
+public record CategoryChangedEvent(Long categoryId) {}
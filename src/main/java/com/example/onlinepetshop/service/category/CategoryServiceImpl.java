@@ -4,7 +4,9 @@ import com.example.onlinepetshop.dto.category.CategoryResponse;
 import com.example.onlinepetshop.dto.category.CreateCategoryRequest;
 import com.example.onlinepetshop.entity.Category;
 import com.example.onlinepetshop.repository.CategoryRepository;
+import com.example.onlinepetshop.service.catalog.CatalogVersion;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -15,6 +17,8 @@ import java.util.NoSuchElementException;
 public class CategoryServiceImpl implements CategoryService {
 
     private final CategoryRepository categoryRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CatalogVersion catalogVersion;
 
     @Override
     public List<Category> getAll() {
@@ -27,6 +31,8 @@ public class CategoryServiceImpl implements CategoryService {
         category.setName(request.getName());
 
         Category savedCategory = categoryRepository.save(category);
+        eventPublisher.publishEvent(new CategoryChangedEvent(savedCategory.getId()));
+        catalogVersion.bump();
 
         return new CategoryResponse(savedCategory.getId(), savedCategory.getName());
     }
@@ -38,5 +44,7 @@ public class CategoryServiceImpl implements CategoryService {
         }
 
         categoryRepository.deleteById(categoryId);
+        eventPublisher.publishEvent(new CategoryChangedEvent(categoryId));
+        catalogVersion.bump();
     }
 }
@@ -0,0 +1,81 @@
+package com.example.onlinepetshop.service.order;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.TreeSet;
+
+// Помесячные секции архивных таблиц (RANGE по archive_month). Работает только на MySQL:
+// DDL там фиксирует транзакцию, поэтому вызывается до переноса пачек, а не внутри него
+@Slf4j
+@Component
+@RequiredArgsConstructor
+class OrderArchivePartitions {
+
+    static final List<String> TABLES = List.of("orders_archive", "order_item_archive");
+
+    private static final String PARTITIONS_SQL =
+            "select partition_description from information_schema.partitions " +
+            "where table_schema = database() and table_name = ? and partition_name is not null";
+    private static final String MAX_VALUE = "MAXVALUE";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile Boolean supported;
+
+    static int monthKey(YearMonth month) {
+        return month.getYear() * 100 + month.getMonthValue();
+    }
+
+    void ensure(Collection<Integer> months) {
+        if (months.isEmpty() || !isSupported()) {
+            return;
+        }
+        for (String table : TABLES) {
+            List<String> bounds = jdbcTemplate.queryForList(PARTITIONS_SQL, String.class, table);
+            if (bounds.isEmpty()) {
+                jdbcTemplate.execute("alter table " + table + " partition by range (archive_month) ("
+                        + definitions(new TreeSet<>(months)) + ")");
+                log.info("Таблица {} разбита на секции по месяцам", table);
+                continue;
+            }
+            // Новые месяцы отрезаются от хвостовой секции; более ранние попадают в уже существующие секции
+            int upper = bounds.stream()
+                    .filter(bound -> !MAX_VALUE.equalsIgnoreCase(bound))
+                    .mapToInt(Integer::parseInt)
+                    .max()
+                    .orElse(0);
+            TreeSet<Integer> missing = new TreeSet<>();
+            months.stream().filter(month -> month >= upper).forEach(missing::add);
+            if (!missing.isEmpty()) {
+                jdbcTemplate.execute("alter table " + table + " reorganize partition pmax into ("
+                        + definitions(missing) + ")");
+            }
+        }
+    }
+
+    private static String definitions(TreeSet<Integer> months) {
+        StringJoiner joiner = new StringJoiner(", ");
+        for (Integer month : months) {
+            YearMonth next = YearMonth.of(month / 100, month % 100).plusMonths(1);
+            joiner.add("partition p" + month + " values less than (" + monthKey(next) + ")");
+        }
+        joiner.add("partition pmax values less than maxvalue");
+        return joiner.toString();
+    }
+
+    private boolean isSupported() {
+        if (supported == null) {
+            supported = "MySQL".equalsIgnoreCase(jdbcTemplate.execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName()));
+        }
+        return supported;
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.onlinepetshop.service.order;
+
+import com.example.onlinepetshop.dto.order.OrderArchiveReport;
+
+public interface OrderArchiveService {
+    OrderArchiveReport archive();
+}
@@ -0,0 +1,87 @@
+package com.example.onlinepetshop.service.order;
+
+import com.example.onlinepetshop.dto.order.CreateOrderRequest;
+import com.example.onlinepetshop.dto.order.OrderResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+// Результаты оформления заказов по ключу Idempotency-Key; ключи изолированы по пользователю
+@Component
+public class OrderIdempotencyStore {
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private record Entry(CreateOrderRequest request, CompletableFuture<OrderResponse> result, long createdAt) {
+    }
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    @Value("${orders.idempotency.ttl:PT24H}")
+    private Duration ttl;
+
+    @Value("${orders.idempotency.wait-timeout:PT30S}")
+    private Duration waitTimeout;
+
+    public OrderResponse execute(String userEmail, String key, CreateOrderRequest request, Supplier<OrderResponse> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Слишком длинный ключ идемпотентности");
+        }
+
+        String scopedKey = userEmail + "\n" + key;
+        Entry created = new Entry(request, new CompletableFuture<>(), System.currentTimeMillis());
+        Entry existing = entries.putIfAbsent(scopedKey, created);
+        if (existing != null) {
+            if (!existing.request().equals(request)) {
+                throw new IllegalArgumentException("Ключ идемпотентности уже использован для другого заказа");
+            }
+            return await(existing.result());
+        }
+
+        try {
+            OrderResponse response = action.get();
+            created.result().complete(response);
+            return response;
+        } catch (Throwable e) {
+            // Неудачная попытка (в том числе Error) не запоминается: повтор с тем же ключом выполнит заказ заново,
+            // а ожидающие запросы не висят до таймаута
+            entries.remove(scopedKey, created);
+            created.result().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${orders.idempotency.eviction-interval:PT5M}")
+    public void evictExpired() {
+        long threshold = System.currentTimeMillis() - ttl.toMillis();
+        entries.values().removeIf(entry -> entry.result().isDone() && entry.createdAt() < threshold);
+    }
+
+    private OrderResponse await(CompletableFuture<OrderResponse> result) {
+        try {
+            return result.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Не удалось оформить заказ", e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Заказ с этим ключом ещё оформляется");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Ожидание оформления заказа прервано");
+        }
+    }
+}
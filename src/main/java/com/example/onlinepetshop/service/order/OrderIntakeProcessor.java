@@ -0,0 +1,211 @@
+package com.example.onlinepetshop.service.order;
+
+import com.example.onlinepetshop.dto.order.CreateOrderRequest;
+import com.example.onlinepetshop.dto.order.OrderEvent;
+import com.example.onlinepetshop.dto.order.OrderItemResponse;
+import com.example.onlinepetshop.entity.Order;
+import com.example.onlinepetshop.entity.Product;
+import com.example.onlinepetshop.entity.User;
+import com.example.onlinepetshop.entity.enums.OrderStatus;
+import com.example.onlinepetshop.repository.OrderRepository;
+import com.example.onlinepetshop.repository.ProductRepository;
+import com.example.onlinepetshop.service.product.StockChangedEvent;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Обрабатывает пачку принятых заказов одной транзакцией: резерв остатков, позиции, итоговый статус
+@Component
+@RequiredArgsConstructor
+class OrderIntakeProcessor {
+
+    // Заказ, который администратор успел перевести из CREATED, очередь больше не трогает
+    private static final String UPDATE_ORDER_SQL =
+            "update orders set status = ?, total = ? where id = ? and status = 'CREATED'";
+    private static final String FIND_ABANDONED_SQL =
+            "select id, order_date from orders where status = ? and total = 0"
+                    + " and not exists (select 1 from order_item i where i.order_id = orders.id) order by id for update";
+
+    // superseded — заказы, которые уже не в CREATED: для них ничего не резервировалось и не публиковалось
+    record Outcome(Map<Long, String> failures, Set<Long> superseded) {
+    }
+
+    private final ProductRepository productRepository;
+    private final OrderRepository orderRepository;
+    private final OrderReadModel readModel;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Заказ-заготовка и его строка в модели чтения появляются одной транзакцией
+    @Transactional
+    public Order accept(User user, CreateOrderRequest request) {
+        Order order = new Order();
+        order.setUser(user);
+        order.setOrderDate(LocalDateTime.now());
+        order.setStatus(OrderStatus.CREATED);
+        order.setTotal(BigDecimal.ZERO);
+        order.setPhone(request.getPhone());
+        order.setAddress(request.getAddress());
+        order.setComment(request.getComment());
+        Order saved = orderRepository.save(order);
+        readModel.insert(saved, List.of());
+
+        eventPublisher.publishEvent(OrderEvent.created(saved.getId(), user.getEmail(), OrderStatus.CREATED, BigDecimal.ZERO));
+        return saved;
+    }
+
+    // Причины отказа по id заказа; заказы без отказа и не из superseded переведены в PENDING
+    @Transactional
+    public Outcome process(List<OrderIntakeTicket> batch) {
+        // Строки заказов блокируются до резерва: смена статуса администратором дождётся конца пачки или пройдёт до неё
+        List<Long> orderIds = batch.stream().map(OrderIntakeTicket::orderId).sorted().toList();
+        Set<Long> claimed = new TreeSet<>(jdbcTemplate.queryForList("select id from orders where id in ("
+                + OrderReadModel.placeholders(orderIds.size()) + ") and status = 'CREATED' order by id for update",
+                Long.class, orderIds.toArray()));
+        Set<Long> superseded = orderIds.stream()
+                .filter(id -> !claimed.contains(id))
+                .collect(Collectors.toCollection(TreeSet::new));
+        if (claimed.isEmpty()) {
+            return new Outcome(Map.of(), superseded);
+        }
+
+        Set<Long> productIds = batch.stream()
+                .filter(ticket -> claimed.contains(ticket.orderId()))
+                .flatMap(ticket -> ticket.lines().keySet().stream())
+                .collect(Collectors.toCollection(TreeSet::new));
+        Map<Long, Product> products = productRepository.findAllById(productIds).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        Map<Long, String> failures = new HashMap<>();
+        List<OrderIntakeTicket> tickets = batch.stream()
+                .filter(ticket -> claimed.contains(ticket.orderId()))
+                .sorted(Comparator.comparing(OrderIntakeTicket::orderId))
+                .toList();
+        for (OrderIntakeTicket ticket : tickets) {
+            if (!products.keySet().containsAll(ticket.lines().keySet())) {
+                failures.put(ticket.orderId(), "Товар не найден");
+            }
+        }
+
+        // Резервируем по возрастанию (товар, заказ) — тот же порядок блокировок, что и у синхронного оформления
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Map<Long, Map<Long, Integer>> reserved = new HashMap<>();
+        Set<Long> touched = new TreeSet<>();
+        for (Long productId : productIds) {
+            for (OrderIntakeTicket ticket : tickets) {
+                Integer quantity = ticket.lines().get(productId);
+                if (quantity == null || failures.containsKey(ticket.orderId())) {
+                    continue;
+                }
+                if (jdbcTemplate.update(OrderServiceImpl.RESERVE_STOCK_SQL, quantity, now, productId, quantity) == 0) {
+                    failures.put(ticket.orderId(), "Недостаточно товара на складе: " + products.get(productId).getName());
+                    continue;
+                }
+                reserved.computeIfAbsent(ticket.orderId(), id -> new TreeMap<>()).put(productId, quantity);
+                touched.add(productId);
+            }
+        }
+
+        // Заказ, которому не хватило одной позиции, возвращает уже зарезервированные остальные
+        List<Object[]> releases = new ArrayList<>();
+        failures.keySet().forEach(orderId -> reserved.getOrDefault(orderId, Map.of())
+                .forEach((productId, quantity) -> releases.add(new Object[]{quantity, now, productId})));
+        if (!releases.isEmpty()) {
+            jdbcTemplate.batchUpdate(OrderStock.RELEASE_STOCK_SQL, releases);
+        }
+
+        List<Object[]> items = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>(tickets.size());
+        List<OrderEvent> events = new ArrayList<>(tickets.size());
+        List<OrderSalesEvent> salesEvents = new ArrayList<>(tickets.size());
+        List<OrderReadModel.Completion> completions = new ArrayList<>(tickets.size());
+        for (OrderIntakeTicket ticket : tickets) {
+            if (failures.containsKey(ticket.orderId())) {
+                updates.add(new Object[]{OrderStatus.CANCELED.name(), BigDecimal.ZERO, ticket.orderId()});
+                completions.add(canceledSummary(ticket.orderId()));
+                events.add(OrderEvent.statusChanged(ticket.orderId(), ticket.userEmail(), OrderStatus.CANCELED, BigDecimal.ZERO));
+                salesEvents.add(canceled(ticket));
+                continue;
+            }
+            BigDecimal total = BigDecimal.ZERO;
+            List<OrderItemResponse> snapshot = new ArrayList<>(ticket.lines().size());
+            for (Map.Entry<Long, Integer> line : ticket.lines().entrySet()) {
+                Product product = products.get(line.getKey());
+                items.add(new Object[]{ticket.orderId(), line.getKey(), line.getValue(), product.getPrice()});
+                snapshot.add(new OrderItemResponse(line.getKey(), product.getName(), line.getValue(), product.getPrice()));
+                total = total.add(product.getPrice().multiply(BigDecimal.valueOf(line.getValue())));
+            }
+            updates.add(new Object[]{OrderStatus.PENDING.name(), total, ticket.orderId()});
+            completions.add(new OrderReadModel.Completion(ticket.orderId(), OrderStatus.PENDING, total, snapshot));
+            events.add(OrderEvent.statusChanged(ticket.orderId(), ticket.userEmail(), OrderStatus.PENDING, total));
+            salesEvents.add(new OrderSalesEvent(ticket.orderId(), ticket.orderDate(), null, OrderStatus.PENDING,
+                    OrderServiceImpl.salesLines(ticket.lines(), products)));
+        }
+        if (!items.isEmpty()) {
+            jdbcTemplate.batchUpdate(OrderServiceImpl.INSERT_ITEM_SQL, items);
+        }
+        jdbcTemplate.batchUpdate(UPDATE_ORDER_SQL, updates);
+        readModel.completeAll(completions);
+
+        if (!touched.isEmpty()) {
+            eventPublisher.publishEvent(new StockChangedEvent(List.copyOf(touched)));
+        }
+        events.forEach(eventPublisher::publishEvent);
+        salesEvents.forEach(eventPublisher::publishEvent);
+        return new Outcome(failures, superseded);
+    }
+
+    // false — заказ уже не в CREATED, отменять нечего
+    @Transactional
+    public boolean cancel(OrderIntakeTicket ticket) {
+        if (jdbcTemplate.update(UPDATE_ORDER_SQL, OrderStatus.CANCELED.name(), BigDecimal.ZERO, ticket.orderId()) == 0) {
+            return false;
+        }
+        readModel.completeAll(List.of(canceledSummary(ticket.orderId())));
+        eventPublisher.publishEvent(
+                OrderEvent.statusChanged(ticket.orderId(), ticket.userEmail(), OrderStatus.CANCELED, BigDecimal.ZERO));
+        eventPublisher.publishEvent(canceled(ticket));
+        return true;
+    }
+
+    // Заказы, принятые в очередь до остановки приложения и так и не обработанные
+    @Transactional
+    public int cancelAbandoned() {
+        List<OrderSalesEvent> abandoned = jdbcTemplate.query(FIND_ABANDONED_SQL,
+                (rs, row) -> new OrderSalesEvent(rs.getLong("id"), rs.getTimestamp("order_date").toLocalDateTime().toLocalDate(),
+                        null, OrderStatus.CANCELED, List.of()),
+                OrderStatus.CREATED.name());
+        // Найденные строки заблокированы, поэтому админ не сменит их статус между выборкой и обновлением
+        jdbcTemplate.batchUpdate(UPDATE_ORDER_SQL, abandoned.stream()
+                .map(event -> new Object[]{OrderStatus.CANCELED.name(), BigDecimal.ZERO, event.orderId()})
+                .toList());
+        readModel.completeAll(abandoned.stream().map(event -> canceledSummary(event.orderId())).toList());
+        abandoned.forEach(eventPublisher::publishEvent);
+        return abandoned.size();
+    }
+
+    private static OrderReadModel.Completion canceledSummary(Long orderId) {
+        return new OrderReadModel.Completion(orderId, OrderStatus.CANCELED, BigDecimal.ZERO, List.of());
+    }
+
+    // В свёртки продаж заказ из очереди попадает только после обработки — уже с итоговым статусом
+    private static OrderSalesEvent canceled(OrderIntakeTicket ticket) {
+        return new OrderSalesEvent(ticket.orderId(), ticket.orderDate(), null, OrderStatus.CANCELED, List.of());
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.onlinepetshop.service.order;
+
+// Очередь приёма заказов заполнена — клиенту отвечаем 429
+public class OrderIntakeRejectedException extends RuntimeException {
+    public OrderIntakeRejectedException() {
+        super("Очередь заказов переполнена, повторите попытку позже");
+    }
+}
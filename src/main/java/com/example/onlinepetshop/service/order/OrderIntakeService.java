@@ -0,0 +1,13 @@
+package com.example.onlinepetshop.service.order;
+
+import com.example.onlinepetshop.dto.order.CreateOrderRequest;
+import com.example.onlinepetshop.dto.order.OrderIntakeStats;
+import com.example.onlinepetshop.dto.order.OrderIntakeStatus;
+
+public interface OrderIntakeService {
+    OrderIntakeStatus submit(String userEmail, CreateOrderRequest request);
+
+    OrderIntakeStatus getStatus(String userEmail, Long orderId);
+
+    OrderIntakeStats getStats();
+}
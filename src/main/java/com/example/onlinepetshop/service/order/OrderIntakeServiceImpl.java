@@ -0,0 +1,239 @@
+package com.example.onlinepetshop.service.order;
+
+import com.example.onlinepetshop.dto.order.CreateOrderRequest;
+import com.example.onlinepetshop.dto.order.OrderIntakeStats;
+import com.example.onlinepetshop.dto.order.OrderIntakeStatus;
+import com.example.onlinepetshop.entity.Order;
+import com.example.onlinepetshop.entity.OrderSummary;
+import com.example.onlinepetshop.entity.User;
+import com.example.onlinepetshop.entity.enums.OrderStatus;
+import com.example.onlinepetshop.repository.OrderSummaryRepository;
+import com.example.onlinepetshop.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Асинхронный приём заказов: запрос только резервирует место в очереди и создаёт заказ в статусе CREATED,
+// остальное делают воркеры на виртуальных потоках пачками
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderIntakeServiceImpl implements OrderIntakeService {
+
+    private record Result(String userEmail, OrderStatus status, String error, long finishedAt) {
+    }
+
+    private final UserRepository userRepository;
+    private final OrderSummaryRepository summaryRepository;
+    private final OrderIntakeProcessor processor;
+
+    @Value("${orders.intake.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${orders.intake.workers:4}")
+    private int workerCount;
+
+    @Value("${orders.intake.batch-size:50}")
+    private int batchSize;
+
+    @Value("${orders.intake.result-ttl:PT1H}")
+    private Duration resultTtl;
+
+    @Value("${orders.intake.shutdown-timeout:PT30S}")
+    private Duration shutdownTimeout;
+
+    private final BlockingQueue<OrderIntakeTicket> queue = new LinkedBlockingQueue<>();
+    private final Map<Long, Result> results = new ConcurrentHashMap<>();
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder totalLag = new LongAdder();
+    private final AtomicLong maxLag = new AtomicLong();
+
+    private Semaphore slots;
+    private ExecutorService workers;
+    private volatile boolean running;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        int abandoned = processor.cancelAbandoned();
+        if (abandoned > 0) {
+            log.warn("Отменено {} заказов, оставшихся в очереди с прошлого запуска", abandoned);
+        }
+        slots = new Semaphore(queueCapacity);
+        workers = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("order-intake-", 0).factory());
+        running = true;
+        for (int i = 0; i < workerCount; i++) {
+            workers.execute(this::work);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void stop() throws InterruptedException {
+        if (workers == null) {
+            return;
+        }
+        // Новые заказы больше не принимаются, уже принятые воркеры дообрабатывают до таймаута
+        running = false;
+        workers.shutdown();
+        if (!workers.awaitTermination(shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+            workers.shutdownNow();
+        }
+    }
+
+    @Override
+    public OrderIntakeStatus submit(String userEmail, CreateOrderRequest request) {
+        Map<Long, Integer> lines = OrderServiceImpl.mergeQuantities(request.getItems());
+        User user = userRepository.findByEmail(userEmail)
+                .orElseThrow(() -> new UsernameNotFoundException("Пользователь не найден"));
+
+        if (!running || !slots.tryAcquire()) {
+            rejected.increment();
+            throw new OrderIntakeRejectedException();
+        }
+        try {
+            Order saved = processor.accept(user, request);
+            queue.add(new OrderIntakeTicket(saved.getId(), userEmail, saved.getOrderDate().toLocalDate(), lines,
+                    System.currentTimeMillis()));
+            accepted.increment();
+            return new OrderIntakeStatus(saved.getId(), OrderStatus.CREATED, null);
+        } catch (RuntimeException e) {
+            slots.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public OrderIntakeStatus getStatus(String userEmail, Long orderId) {
+        Result result = results.get(orderId);
+        if (result != null) {
+            if (!result.userEmail().equals(userEmail)) {
+                throw new AccessDeniedException("Доступ к чужому заказу запрещён");
+            }
+            return new OrderIntakeStatus(orderId, result.status(), result.error());
+        }
+
+        OrderSummary order = summaryRepository.findById(orderId)
+                .orElseThrow(() -> new NoSuchElementException("Заказ не найден"));
+        if (!order.getUserEmail().equals(userEmail)) {
+            throw new AccessDeniedException("Доступ к чужому заказу запрещён");
+        }
+        return new OrderIntakeStatus(orderId, order.getStatus(), null);
+    }
+
+    @Override
+    public OrderIntakeStats getStats() {
+        OrderIntakeTicket oldest = queue.peek();
+        long done = processed.sum() + failed.sum();
+        return new OrderIntakeStats(
+                queue.size(),
+                queueCapacity,
+                workerCount,
+                accepted.sum(),
+                rejected.sum(),
+                processed.sum(),
+                failed.sum(),
+                oldest == null ? 0 : System.currentTimeMillis() - oldest.acceptedAt(),
+                done == 0 ? 0 : totalLag.sum() / done,
+                maxLag.get()
+        );
+    }
+
+    @Scheduled(fixedDelayString = "${orders.intake.eviction-interval:PT5M}")
+    public void evictResults() {
+        long threshold = System.currentTimeMillis() - resultTtl.toMillis();
+        results.values().removeIf(result -> result.finishedAt() < threshold);
+    }
+
+    private void work() {
+        List<OrderIntakeTicket> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                OrderIntakeTicket first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                slots.release(batch.size());
+                processBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Сбой обработчика очереди заказов", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void processBatch(List<OrderIntakeTicket> batch) {
+        try {
+            complete(batch, processor.process(batch));
+            return;
+        } catch (RuntimeException e) {
+            log.warn("Пачка из {} заказов не обработана, повтор по одному: {}", batch.size(), e.getMessage());
+        }
+        // Сбой одного заказа не должен ронять соседей по пачке
+        for (OrderIntakeTicket ticket : batch) {
+            try {
+                complete(List.of(ticket), processor.process(List.of(ticket)));
+            } catch (RuntimeException e) {
+                log.error("Не удалось обработать заказ {}", ticket.orderId(), e);
+                boolean canceled = true;
+                try {
+                    canceled = processor.cancel(ticket);
+                } catch (RuntimeException ignored) {
+                    // останется в CREATED и будет отменён при следующем запуске
+                }
+                complete(List.of(ticket), canceled
+                        ? new OrderIntakeProcessor.Outcome(Map.of(ticket.orderId(), "Не удалось оформить заказ"), Set.of())
+                        : new OrderIntakeProcessor.Outcome(Map.of(), Set.of(ticket.orderId())));
+            }
+        }
+    }
+
+    // Заказы, которые администратор перевёл из CREATED до обработки, в результаты не пишутся:
+    // их статус отдаётся из модели чтения
+    private void complete(List<OrderIntakeTicket> tickets, OrderIntakeProcessor.Outcome outcome) {
+        long now = System.currentTimeMillis();
+        for (OrderIntakeTicket ticket : tickets) {
+            if (outcome.superseded().contains(ticket.orderId())) {
+                continue;
+            }
+            String error = outcome.failures().get(ticket.orderId());
+            results.put(ticket.orderId(), new Result(ticket.userEmail(),
+                    error == null ? OrderStatus.PENDING : OrderStatus.CANCELED, error, now));
+            (error == null ? processed : failed).increment();
+
+            long lag = now - ticket.acceptedAt();
+            totalLag.add(lag);
+            maxLag.accumulateAndGet(lag, Math::max);
+        }
+    }
+}
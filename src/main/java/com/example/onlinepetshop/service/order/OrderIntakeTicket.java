@@ -0,0 +1,8 @@
+package com.example.onlinepetshop.service.order;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+// Принятый в очередь заказ: строка orders уже создана со статусом CREATED, позиции ещё не записаны
+record OrderIntakeTicket(Long orderId, String userEmail, LocalDate orderDate, Map<Long, Integer> lines, long acceptedAt) {
+}
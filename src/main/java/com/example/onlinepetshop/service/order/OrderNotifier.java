@@ -0,0 +1,25 @@
+package com.example.onlinepetshop.service.order;
+
+import com.example.onlinepetshop.dto.order.OrderEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+// Рассылает изменения заказов подписчикам STOMP только после коммита;
+// отправка лишь ставит сообщение в канал брокера, раздачу клиентам делают его потоки
+@Component
+@RequiredArgsConstructor
+public class OrderNotifier {
+
+    public static final String ADMIN_TOPIC = "/topic/admin/orders";
+    public static final String USER_QUEUE = "/queue/orders";
+
+    private final SimpMessagingTemplate messagingTemplate;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderEvent(OrderEvent event) {
+        messagingTemplate.convertAndSend(ADMIN_TOPIC, event);
+        messagingTemplate.convertAndSendToUser(event.userEmail(), USER_QUEUE, event);
+    }
+}
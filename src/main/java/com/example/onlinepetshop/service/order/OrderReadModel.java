@@ -0,0 +1,345 @@
+package com.example.onlinepetshop.service.order;
+
+import com.example.onlinepetshop.dto.order.OrderItemResponse;
+import com.example.onlinepetshop.dto.order.OrderResponse;
+import com.example.onlinepetshop.dto.order.ReadModelReport;
+import com.example.onlinepetshop.entity.ArchivedOrder;
+import com.example.onlinepetshop.entity.Order;
+import com.example.onlinepetshop.entity.OrderSummary;
+import com.example.onlinepetshop.entity.enums.OrderStatus;
+import com.example.onlinepetshop.repository.OrderRepository;
+import com.example.onlinepetshop.repository.OrderSummaryRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Запись модели чтения заказов (order_summary). Методы записи вызываются внутри транзакции,
+// меняющей сам заказ, поэтому строка модели всегда согласована с заказом на момент коммита
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderReadModel {
+
+    private static final String UPSERT_SQL =
+            "insert into order_summary (id, user_id, user_email, order_date, status, total, phone, address, comment, items) " +
+            "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+            "on duplicate key update user_id = values(user_id), user_email = values(user_email), " +
+            "order_date = values(order_date), status = values(status), total = values(total), phone = values(phone), " +
+            "address = values(address), comment = values(comment), items = values(items)";
+    private static final String COMPLETE_SQL = "update order_summary set status = ?, total = ?, items = ? where id = ?";
+    private static final String DELETE_SQL = "delete from order_summary where id = ?";
+    private static final String RENAME_USER_SQL = "update order_summary set user_email = ? where user_id = ?";
+    private static final String RENAME_ARCHIVED_USER_SQL = "update orders_archive set user_email = ? where user_id = ?";
+    private static final String IDS_SQL = "select id from orders where id > ? order by id limit ?";
+    // При перезаписи строки заказа блокируются: параллельная смена статуса дождётся пачки и перепишет строку после неё
+    private static final String LOCK_IDS_SQL = IDS_SQL + " for update";
+    private static final String ORPHANS_SQL =
+            "select s.id from order_summary s where not exists (select 1 from orders o where o.id = s.id)";
+    private static final int MAX_REPORTED_IDS = 100;
+    private static final TypeReference<List<OrderItemResponse>> ITEMS_TYPE = new TypeReference<>() {
+    };
+
+    public record Completion(Long orderId, OrderStatus status, BigDecimal total, List<OrderItemResponse> items) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final OrderRepository orderRepository;
+    private final OrderSummaryRepository summaryRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${orders.read-model.batch-size:500}")
+    private int batchSize;
+
+    // Разовая миграция при первом запуске с пустой моделью: идёт в фоне, чтобы не держать старт приложения.
+    // Пока она не дошла до конца, списки заказов неполные, а запись в уже перестроенные строки идёт как обычно
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfEmpty() {
+        if (summaryRepository.count() == 0 && orderRepository.count() > 0) {
+            Thread.ofVirtual().name("order-read-model-rebuild").start(() -> {
+                try {
+                    log.info("Модель чтения заказов перестроена: {}", rebuild());
+                } catch (RuntimeException e) {
+                    log.error("Не удалось перестроить модель чтения заказов", e);
+                }
+            });
+        }
+    }
+
+    public void insert(Order order, List<OrderItemResponse> items) {
+        upsert(List.of(snapshot(order, items)));
+    }
+
+    public void updateStatusAll(List<Long> orderIds, OrderStatus status) {
+        if (orderIds.isEmpty()) {
+            return;
+        }
+        List<Object> args = new ArrayList<>(orderIds.size() + 1);
+        args.add(status.name());
+        args.addAll(orderIds);
+        jdbcTemplate.update("update order_summary set status = ? where id in (" + placeholders(orderIds.size()) + ")",
+                args.toArray());
+    }
+
+    static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    public void completeAll(List<Completion> completions) {
+        if (completions.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(COMPLETE_SQL, completions.stream()
+                .map(c -> new Object[]{c.status().name(), c.total(), toJson(c.items()), c.orderId()})
+                .toList());
+    }
+
+    public void delete(Long orderId) {
+        jdbcTemplate.update(DELETE_SQL, orderId);
+    }
+
+    // Архив тоже ищется и проверяется по email, поэтому переименовывается вместе с горячей моделью
+    public void renameUser(Long userId, String email) {
+        jdbcTemplate.update(RENAME_USER_SQL, email, userId);
+        jdbcTemplate.update(RENAME_ARCHIVED_USER_SQL, email, userId);
+    }
+
+    public OrderResponse toResponse(OrderSummary summary) {
+        return new OrderResponse(
+                summary.getId(),
+                summary.getStatus(),
+                summary.getOrderDate(),
+                summary.getTotal(),
+                fromJson(summary.getItems()),
+                summary.getUserEmail(),
+                summary.getPhone(),
+                summary.getAddress(),
+                summary.getComment()
+        );
+    }
+
+    public OrderResponse toResponse(ArchivedOrder order) {
+        return new OrderResponse(
+                order.getId(),
+                order.getStatus(),
+                order.getOrderDate(),
+                order.getTotal(),
+                fromJson(order.getItems()),
+                order.getUserEmail(),
+                order.getPhone(),
+                order.getAddress(),
+                order.getComment()
+        );
+    }
+
+    // Полная перезапись модели из заказов. Названия товаров в уже существующих снимках сохраняются,
+    // текущие названия берутся только для заказов без строки модели
+    public ReadModelReport rebuild() {
+        return scan(true, true);
+    }
+
+    public ReadModelReport check(boolean repair) {
+        return scan(repair, false);
+    }
+
+    // Чинит пропущенные и устаревшие строки модели для заказов, уже заблокированных текущей транзакцией
+    public long repair(List<Long> orderIds) {
+        ScanState state = new ScanState();
+        compare(orderIds, true, false, state);
+        return state.written;
+    }
+
+    private ReadModelReport scan(boolean repair, boolean rewriteAll) {
+        ScanState state = new ScanState();
+        long afterId = 0;
+        while (true) {
+            long from = afterId;
+            List<Long> ids = transactionTemplate.execute(status -> scanChunk(from, repair, rewriteAll, state));
+            if (ids == null || ids.isEmpty()) {
+                break;
+            }
+            afterId = ids.get(ids.size() - 1);
+        }
+
+        List<Long> orphans = jdbcTemplate.queryForList(ORPHANS_SQL, Long.class);
+        state.orphaned = orphans.size();
+        orphans.stream().limit(MAX_REPORTED_IDS - state.mismatchedIds.size()).forEach(state.mismatchedIds::add);
+        if (repair && !orphans.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_SQL, orphans.stream().map(id -> new Object[]{id}).toList());
+        }
+        return new ReadModelReport(state.checked, state.missing, state.stale, state.orphaned, state.written,
+                List.copyOf(state.mismatchedIds));
+    }
+
+    private List<Long> scanChunk(long afterId, boolean repair, boolean rewriteAll, ScanState state) {
+        List<Long> ids = jdbcTemplate.queryForList(repair ? LOCK_IDS_SQL : IDS_SQL, Long.class, afterId, batchSize);
+        if (!ids.isEmpty()) {
+            compare(ids, repair, rewriteAll, state);
+        }
+        return ids;
+    }
+
+    private void compare(List<Long> ids, boolean repair, boolean rewriteAll, ScanState state) {
+        Map<Long, OrderSummary> current = summaryRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(OrderSummary::getId, Function.identity()));
+
+        List<OrderSummary> rewrites = new ArrayList<>();
+        for (Order order : orderRepository.findWithItemsByIdIn(ids)) {
+            OrderSummary actual = current.get(order.getId());
+            List<OrderItemResponse> items = itemsOf(order);
+            if (actual != null) {
+                items = keepNames(items, fromJson(actual.getItems()));
+            }
+            OrderSummary expected = snapshot(order, items);
+            boolean mismatch = actual == null || !sameContent(actual, expected);
+            state.checked++;
+            if (actual == null) {
+                state.missing++;
+            } else if (mismatch) {
+                state.stale++;
+            }
+            if (mismatch && state.mismatchedIds.size() < MAX_REPORTED_IDS) {
+                state.mismatchedIds.add(order.getId());
+            }
+            if (rewriteAll || (repair && mismatch)) {
+                rewrites.add(expected);
+            }
+        }
+        upsert(rewrites);
+        state.written += rewrites.size();
+    }
+
+    private void upsert(List<OrderSummary> summaries) {
+        if (summaries.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(UPSERT_SQL, summaries.stream()
+                .map(s -> new Object[]{
+                        s.getId(), s.getUserId(), s.getUserEmail(),
+                        s.getOrderDate() == null ? null : Timestamp.valueOf(s.getOrderDate()),
+                        s.getStatus() == null ? null : s.getStatus().name(),
+                        s.getTotal(), s.getPhone(), s.getAddress(), s.getComment(), s.getItems()})
+                .toList());
+    }
+
+    private OrderSummary snapshot(Order order, List<OrderItemResponse> items) {
+        OrderSummary summary = new OrderSummary();
+        summary.setId(order.getId());
+        summary.setUserId(order.getUser().getId());
+        summary.setUserEmail(order.getUser().getEmail());
+        summary.setOrderDate(order.getOrderDate());
+        summary.setStatus(order.getStatus());
+        // У старых заказов сумма могла не сохраняться — считаем её один раз при сборке снимка
+        summary.setTotal(order.getTotal() != null ? order.getTotal() : items.stream()
+                .map(item -> item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())))
+                .reduce(BigDecimal.ZERO, BigDecimal::add));
+        summary.setPhone(order.getPhone());
+        summary.setAddress(order.getAddress());
+        summary.setComment(order.getComment());
+        summary.setItems(toJson(items));
+        return summary;
+    }
+
+    private static List<OrderItemResponse> itemsOf(Order order) {
+        return order.getItems().stream()
+                .map(item -> new OrderItemResponse(
+                        item.getProduct().getId(),
+                        item.getProduct().getName(),
+                        item.getQuantity(),
+                        item.getPrice()
+                ))
+                .sorted(Comparator.comparing(OrderItemResponse::getProductId).thenComparingInt(OrderItemResponse::getQuantity))
+                .toList();
+    }
+
+    // Название на момент заказа из прежнего снимка важнее текущего названия товара
+    private static List<OrderItemResponse> keepNames(List<OrderItemResponse> items, List<OrderItemResponse> previous) {
+        Map<Long, String> names = new HashMap<>();
+        previous.forEach(item -> names.putIfAbsent(item.getProductId(), item.getProductName()));
+        return items.stream()
+                .map(item -> names.containsKey(item.getProductId())
+                        ? new OrderItemResponse(item.getProductId(), names.get(item.getProductId()), item.getQuantity(), item.getPrice())
+                        : item)
+                .toList();
+    }
+
+    // Названия товаров не сравниваются: снимок хранит название на момент заказа
+    private boolean sameContent(OrderSummary actual, OrderSummary expected) {
+        return Objects.equals(actual.getUserId(), expected.getUserId())
+                && Objects.equals(actual.getUserEmail(), expected.getUserEmail())
+                && Objects.equals(actual.getOrderDate(), expected.getOrderDate())
+                && actual.getStatus() == expected.getStatus()
+                && sameAmount(actual.getTotal(), expected.getTotal())
+                && Objects.equals(actual.getPhone(), expected.getPhone())
+                && Objects.equals(actual.getAddress(), expected.getAddress())
+                && Objects.equals(actual.getComment(), expected.getComment())
+                && sameLines(fromJson(actual.getItems()), fromJson(expected.getItems()));
+    }
+
+    private static boolean sameLines(List<OrderItemResponse> actual, List<OrderItemResponse> expected) {
+        if (actual.size() != expected.size()) {
+            return false;
+        }
+        for (int i = 0; i < actual.size(); i++) {
+            OrderItemResponse a = actual.get(i);
+            OrderItemResponse e = expected.get(i);
+            if (!Objects.equals(a.getProductId(), e.getProductId()) || a.getQuantity() != e.getQuantity()
+                    || !sameAmount(a.getPrice(), e.getPrice())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean sameAmount(BigDecimal a, BigDecimal b) {
+        return a == null ? b == null : b != null && a.compareTo(b) == 0;
+    }
+
+    private String toJson(List<OrderItemResponse> items) {
+        try {
+            return objectMapper.writeValueAsString(items);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось сериализовать позиции заказа", e);
+        }
+    }
+
+    private List<OrderItemResponse> fromJson(String json) {
+        if (json == null || json.isEmpty()) {
+            return List.of();
+        }
+        try {
+            return objectMapper.readValue(json, ITEMS_TYPE);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Повреждён снимок позиций заказа", e);
+        }
+    }
+
+    private static final class ScanState {
+        long checked;
+        long missing;
+        long stale;
+        long orphaned;
+        long written;
+        final List<Long> mismatchedIds = new ArrayList<>();
+    }
+}
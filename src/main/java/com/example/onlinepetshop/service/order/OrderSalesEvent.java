@@ -0,0 +1,25 @@
+package com.example.onlinepetshop.service.order;
+
+import com.example.onlinepetshop.entity.enums.OrderStatus;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Изменение заказа для свёрток продаж: previousStatus == null — новый заказ, status == null — удалённый.
+// Позиции передаются, только если заказ входит в продажи или выходит из них
+public record OrderSalesEvent(Long orderId, LocalDate salesDate, OrderStatus previousStatus, OrderStatus status,
+                              List<OrderSalesLine> lines) {
+
+    public static boolean counted(OrderStatus status) {
+        return status != null && status != OrderStatus.CANCELED;
+    }
+
+    public static boolean affectsSales(OrderStatus previousStatus, OrderStatus status) {
+        return counted(previousStatus) != counted(status);
+    }
+
+    // +1 — продажи заказа прибавляются к свёрткам, -1 — вычитаются, 0 — не меняются
+    public int salesSign() {
+        return (counted(status) ? 1 : 0) - (counted(previousStatus) ? 1 : 0);
+    }
+}
@@ -0,0 +1,6 @@
+package com.example.onlinepetshop.service.order;
+
+import java.math.BigDecimal;
+
+public record OrderSalesLine(Long productId, Long categoryId, int quantity, BigDecimal price) {
+}
@@ -1,7 +1,14 @@
 package com.example.onlinepetshop.service.order;
 
+import com.example.onlinepetshop.dto.CursorPageResponse;
+import com.example.onlinepetshop.dto.PageResponse;
+import com.example.onlinepetshop.dto.order.AdminOrderFilter;
+import com.example.onlinepetshop.dto.order.BulkStatusUpdateRequest;
+import com.example.onlinepetshop.dto.order.BulkStatusUpdateResponse;
+import com.example.onlinepetshop.dto.order.CheckoutRequest;
 import com.example.onlinepetshop.dto.order.CreateOrderRequest;
 import com.example.onlinepetshop.dto.order.OrderResponse;
+import com.example.onlinepetshop.dto.order.ReadModelReport;
 import com.example.onlinepetshop.entity.enums.OrderStatus;
 import org.springframework.security.core.Authentication;
 
@@ -9,10 +16,14 @@ import java.util.List;
 
 public interface OrderService {
     OrderResponse placeOrder(String userEmail, CreateOrderRequest request);
+    OrderResponse checkout(String userEmail, CheckoutRequest request);
     OrderResponse getOrderById(Long id, Authentication auth);
     void updateOrderStatus(Long id, OrderStatus status);
-    List<OrderResponse> getUserOrders(Authentication auth);
-    List<OrderResponse> getAllOrders();
+    BulkStatusUpdateResponse updateOrderStatuses(BulkStatusUpdateRequest request);
+    CursorPageResponse<OrderResponse> getUserOrders(String userEmail, String cursor, int limit, boolean details);
+    PageResponse<OrderResponse> searchOrders(AdminOrderFilter filter);
     void delete(Long id);
     OrderResponse getOrderForAdmin(Long id);
+    ReadModelReport rebuildReadModel();
+    ReadModelReport checkReadModel(boolean repair);
 }
@@ -1,236 +1,372 @@
 package com.example.onlinepetshop.service.order;
 
+import com.example.onlinepetshop.dto.CursorPageResponse;
+import com.example.onlinepetshop.dto.PageResponse;
+import com.example.onlinepetshop.dto.cart.CartItemDto;
+import com.example.onlinepetshop.dto.order.AdminOrderFilter;
+import com.example.onlinepetshop.dto.order.BulkStatusUpdateRequest;
+import com.example.onlinepetshop.dto.order.BulkStatusUpdateResponse;
+import com.example.onlinepetshop.dto.order.BulkStatusUpdateResult;
+import com.example.onlinepetshop.dto.order.CheckoutRequest;
 import com.example.onlinepetshop.dto.order.CreateOrderRequest;
+import com.example.onlinepetshop.dto.order.OrderEvent;
 import com.example.onlinepetshop.dto.order.OrderItemResponse;
 import com.example.onlinepetshop.dto.order.OrderResponse;
+import com.example.onlinepetshop.dto.order.ReadModelReport;
 import com.example.onlinepetshop.entity.*;
 import com.example.onlinepetshop.entity.enums.OrderStatus;
 import com.example.onlinepetshop.repository.*;
+import com.example.onlinepetshop.service.cart.CartService;
+import com.example.onlinepetshop.service.product.StockChangedEvent;
+import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class OrderServiceImpl implements OrderService {
 
+    static final String RESERVE_STOCK_SQL =
+            "update product set stock = stock - ?, updated_at = ? where id = ? and stock >= ?";
+    static final String INSERT_ITEM_SQL =
+            "insert into order_item (order_id, product_id, quantity, price) values (?, ?, ?, ?)";
+
     private final UserRepository userRepository;
     private final ProductRepository productRepository;
     private final OrderRepository orderRepository;
     private final OrderItemRepository orderItemRepository;
+    private final OrderSummaryRepository summaryRepository;
+    private final ArchivedOrderRepository archivedOrderRepository;
+    private final OrderReadModel readModel;
+    private final OrderStatusBulkUpdater bulkUpdater;
+    private final OrderStock stock;
+    private final CartService cartService;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${orders.page.max-size:200}")
+    private int maxPageSize;
+
+    @Value("${orders.bulk.chunk-size:500}")
+    private int bulkChunkSize;
+
+    @Value("${orders.bulk.max-orders:10000}")
+    private int bulkMaxOrders;
 
     @Override
+    @Transactional
     public OrderResponse placeOrder(String userEmail, CreateOrderRequest request) {
         User user = userRepository.findByEmail(userEmail)
                 .orElseThrow(() -> new UsernameNotFoundException("Пользователь не найден"));
 
-        Order order = new Order();
-        order.setUser(user);
-        order.setOrderDate(LocalDateTime.now());
-        order.setStatus(OrderStatus.CREATED);
-        order.setPhone(request.getPhone());
-        order.setAddress(request.getAddress());
-        order.setComment(request.getComment());
-
-        List<OrderItem> orderItemList = request.getItems().stream()
-                .map(dto -> {
-                    Product product = productRepository.findById(dto.getProductId())
-                            .orElseThrow(() -> new NoSuchElementException("Товар не найден"));
-
-                    OrderItem item = new OrderItem();
-                    item.setProduct(product);
-                    item.setQuantity(dto.getQuantity());
-                    item.setPrice(product.getPrice());
-                    item.setOrder(order);
-                    return item;
-                })
-                .toList();
+        Map<Long, Integer> quantities = mergeQuantities(request.getItems());
+        Map<Long, Product> products = productRepository.findAllById(quantities.keySet()).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        if (products.size() != quantities.size()) {
+            throw new NoSuchElementException("Товар не найден");
+        }
+        return createOrder(user, quantities, products, request.getPhone(), request.getAddress(), request.getComment());
+    }
+
+    // Корзина забирается и опустошается в той же транзакции, что и создание заказа:
+    // при ошибке (например, нехватке товара) корзина остаётся нетронутой, а повторное оформление найдёт её пустой
+    @Override
+    @Transactional
+    public OrderResponse checkout(String userEmail, CheckoutRequest request) {
+        User user = userRepository.findByEmail(userEmail)
+                .orElseThrow(() -> new UsernameNotFoundException("Пользователь не найден"));
 
-        BigDecimal totalAmount = orderItemList.stream()
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (CartItemDto line : cartService.takeForCheckout(userEmail)) {
+            if (line.getQuantity() > 0) {
+                quantities.merge(line.getProductId(), line.getQuantity(), Integer::sum);
+            }
+        }
+        Map<Long, Product> products = quantities.isEmpty() ? Map.of() : productRepository.findAllById(quantities.keySet()).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        // Строки товаров, которых уже нет в каталоге, в заказ не попадают — так же, как их не показывает корзина
+        quantities.keySet().retainAll(products.keySet());
+        if (quantities.isEmpty()) {
+            throw new IllegalArgumentException("Корзина пуста");
+        }
+        OrderResponse order = createOrder(user, quantities, products, request.getPhone(), request.getAddress(), request.getComment());
+        cartService.checkedOut(userEmail, order.getId());
+        return order;
+    }
+
+    // quantities упорядочены по id товара
+    private OrderResponse createOrder(User user, Map<Long, Integer> quantities, Map<Long, Product> products,
+                                      String phone, String address, String comment) {
+        // Строки товаров блокируются в порядке id, поэтому встречные заказы не взаимоблокируются
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        quantities.forEach((productId, quantity) -> {
+            if (jdbcTemplate.update(RESERVE_STOCK_SQL, quantity, now, productId, quantity) == 0) {
+                throw new IllegalArgumentException("Недостаточно товара на складе: " + products.get(productId).getName());
+            }
+        });
+
+        List<OrderItemResponse> items = new ArrayList<>(quantities.size());
+        quantities.forEach((productId, quantity) -> {
+            Product product = products.get(productId);
+            items.add(new OrderItemResponse(productId, product.getName(), quantity, product.getPrice()));
+        });
+        BigDecimal totalAmount = items.stream()
                 .map(item -> item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())))
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
 
-        order.setItems(orderItemList);
+        Order order = new Order();
+        order.setUser(user);
+        order.setOrderDate(now.toLocalDateTime());
+        order.setStatus(OrderStatus.CREATED);
+        order.setPhone(phone);
+        order.setAddress(address);
+        order.setComment(comment);
         order.setTotal(totalAmount);
-
         Order savedOrder = orderRepository.save(order);
-        orderItemRepository.saveAll(orderItemList);
+
+        jdbcTemplate.batchUpdate(INSERT_ITEM_SQL, items, items.size(), (ps, item) -> {
+            ps.setLong(1, savedOrder.getId());
+            ps.setLong(2, item.getProductId());
+            ps.setInt(3, item.getQuantity());
+            ps.setBigDecimal(4, item.getPrice());
+        });
+        readModel.insert(savedOrder, items);
+        eventPublisher.publishEvent(new StockChangedEvent(List.copyOf(quantities.keySet())));
+        eventPublisher.publishEvent(OrderEvent.created(savedOrder.getId(), user.getEmail(), savedOrder.getStatus(), totalAmount));
+        eventPublisher.publishEvent(new OrderSalesEvent(savedOrder.getId(), savedOrder.getOrderDate().toLocalDate(),
+                null, savedOrder.getStatus(), salesLines(quantities, products)));
 
         return new OrderResponse(
                 savedOrder.getId(),
                 savedOrder.getStatus(),
                 savedOrder.getOrderDate(),
                 totalAmount,
-                savedOrder.getItems().stream()
-                        .map(item -> new OrderItemResponse(
-                                item.getProduct().getId(),
-                                item.getProduct().getName(),
-                                item.getQuantity(),
-                                item.getPrice()
-                        ))
-                        .toList(),
+                items,
                 savedOrder.getPhone(),
                 savedOrder.getAddress(),
                 savedOrder.getComment()
         );
     }
 
-    @Override
-    public OrderResponse getOrderById(Long id, Authentication auth) {
-        if (!userRepository.findByEmail(auth.getName()).isPresent()) {
-            throw new AccessDeniedException("Доступ запрещён");
+    static List<OrderSalesLine> salesLines(Map<Long, Integer> quantities, Map<Long, Product> products) {
+        List<OrderSalesLine> lines = new ArrayList<>(quantities.size());
+        quantities.forEach((productId, quantity) -> {
+            Product product = products.get(productId);
+            Long categoryId = product.getCategory() == null ? null : product.getCategory().getId();
+            lines.add(new OrderSalesLine(productId, categoryId, quantity, product.getPrice()));
+        });
+        return lines;
+    }
+
+    static Map<Long, Integer> mergeQuantities(List<CartItemDto> lines) {
+        if (lines == null || lines.isEmpty()) {
+            throw new IllegalArgumentException("Заказ не содержит товаров");
+        }
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (CartItemDto line : lines) {
+            if (line.getProductId() == null || line.getQuantity() <= 0) {
+                throw new IllegalArgumentException("Некорректная позиция заказа");
+            }
+            quantities.merge(line.getProductId(), line.getQuantity(), Integer::sum);
         }
+        return quantities;
+    }
 
-        Order order = orderRepository.findById(id)
+    @Override
+    public OrderResponse getOrderById(Long id, Authentication auth) {
+        OrderResponse order = findOrder(id)
                 .orElseThrow(() -> new NoSuchElementException("Заказ не найден"));
-
-        if (!order.getUser().getEmail().equals(auth.getName())) {
+        if (!order.getUserEmail().equals(auth.getName())) {
             throw new AccessDeniedException("Доступ к чужому заказу запрещён");
         }
+        return order;
+    }
 
-        BigDecimal totalAmount = order.getItems().stream()
-                .map(item -> item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    // Горячая модель чтения, затем архив: завершённые старые заказы переносятся туда целиком
+    private Optional<OrderResponse> findOrder(Long id) {
+        return summaryRepository.findById(id)
+                .map(readModel::toResponse)
+                .or(() -> archivedOrderRepository.findFirstById(id).map(readModel::toResponse));
+    }
 
-        List<OrderItemResponse> items = order.getItems().stream()
-                .map(item -> new OrderItemResponse(
-                        item.getProduct().getId(),
-                        item.getProduct().getName(),
-                        item.getQuantity(),
-                        item.getPrice()
-                ))
+    @Override
+    public CursorPageResponse<OrderResponse> getUserOrders(String userEmail, String cursor, int limit, boolean details) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Размер страницы должен быть положительным");
+        }
+        int size = Math.min(limit, maxPageSize);
+        OrderCursor position = OrderCursor.decode(cursor);
+        Limit window = Limit.of(size + 1);
+        List<OrderResponse> hot;
+        List<OrderResponse> archived;
+        if (details) {
+            hot = (position == null
+                    ? summaryRepository.findByUserEmail(userEmail, window)
+                    : summaryRepository.findByUserEmailBefore(userEmail, position.orderDate(), position.id(), window))
+                    .stream().map(readModel::toResponse).toList();
+            archived = (position == null
+                    ? archivedOrderRepository.findByUserEmail(userEmail, window)
+                    : archivedOrderRepository.findByUserEmailBefore(userEmail, position.orderDate(), position.id(), window))
+                    .stream().map(readModel::toResponse).toList();
+        } else {
+            hot = position == null
+                    ? summaryRepository.findHeadersByUserEmail(userEmail, window)
+                    : summaryRepository.findHeadersByUserEmailBefore(userEmail, position.orderDate(), position.id(), window);
+            archived = position == null
+                    ? archivedOrderRepository.findHeadersByUserEmail(userEmail, window)
+                    : archivedOrderRepository.findHeadersByUserEmailBefore(userEmail, position.orderDate(), position.id(), window);
+        }
+        // Архивируются только завершённые заказы, поэтому по дате горячие и архивные перемежаются — сливаем оба окна
+        List<OrderResponse> page = Stream.concat(hot.stream(), archived.stream())
+                .sorted(Comparator.comparing(OrderResponse::getCreatedAt).thenComparing(OrderResponse::getId).reversed())
+                .limit(size + 1)
                 .toList();
 
-        return new OrderResponse(
-                order.getId(),
-                order.getStatus(),
-                order.getOrderDate(),
-                totalAmount,
-                items,
-                order.getUser().getEmail(),
-                order.getPhone(),
-                order.getAddress(),
-                order.getComment()
-        );
+        boolean hasNext = page.size() > size;
+        List<OrderResponse> items = hasNext ? page.subList(0, size) : page;
+        String nextCursor = null;
+        if (hasNext) {
+            OrderResponse last = items.get(items.size() - 1);
+            nextCursor = new OrderCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        return new CursorPageResponse<>(items, nextCursor, hasNext);
     }
 
     @Override
-    public List<OrderResponse> getUserOrders(Authentication auth) {
-        User user = userRepository.findByEmail(auth.getName())
-                .orElseThrow(() -> new UsernameNotFoundException("Пользователь не найден"));
-
-        List<Order> orders = orderRepository.findByUser(user);
-
-        return orders.stream()
-                .map(order -> {
-                    BigDecimal total = order.getItems().stream()
-                            .map(item -> item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())))
-                            .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-                    return new OrderResponse(
-                            order.getId(),
-                            order.getStatus(),
-                            order.getOrderDate(),
-                            total,
-                            order.getItems().stream()
-                                    .map(item -> new OrderItemResponse(
-                                            item.getProduct().getId(),
-                                            item.getProduct().getName(),
-                                            item.getQuantity(),
-                                            item.getPrice()
-                                    ))
-                                    .toList(),
-                            order.getPhone(),
-                            order.getAddress(),
-                            order.getComment()
-                    );
-                })
-                .toList();
+    @Transactional
+    public void updateOrderStatus(Long id, OrderStatus status) {
+        if (status == null) {
+            throw new IllegalArgumentException("Не указан новый статус");
+        }
+        // Одиночная смена идёт тем же путём, что и массовая: те же переходы, возврат остатков и события
+        BulkStatusUpdateResult result = bulkUpdater.apply(List.of(id), status).get(0);
+        switch (result.outcome()) {
+            case NOT_FOUND -> throw new NoSuchElementException(result.error());
+            case REJECTED -> throw new IllegalArgumentException(result.error());
+            default -> {
+            }
+        }
     }
 
     @Override
-    public void updateOrderStatus(Long id, OrderStatus status) {
-        Order order = orderRepository.findById(id)
-                .orElseThrow(() -> new NoSuchElementException("Заказ не найден"));
-        order.setStatus(status);
-        orderRepository.save(order);
+    public BulkStatusUpdateResponse updateOrderStatuses(BulkStatusUpdateRequest request) {
+        if (request.getStatus() == null) {
+            throw new IllegalArgumentException("Не указан новый статус");
+        }
+        boolean byIds = request.getOrderIds() != null && !request.getOrderIds().isEmpty();
+        if (byIds == (request.getFilter() != null)) {
+            throw new IllegalArgumentException("Укажите либо список заказов, либо фильтр");
+        }
+
+        List<Long> ids = byIds ? request.getOrderIds().stream().filter(Objects::nonNull).distinct().sorted().toList()
+                : summaryRepository.findIdsByFilter(bulkFilter(request.getFilter()), bulkMaxOrders + 1);
+        if (ids.size() > bulkMaxOrders) {
+            throw new IllegalArgumentException("Слишком много заказов за один раз, максимум " + bulkMaxOrders);
+        }
+
+        // Каждая пачка — отдельная транзакция: блокировки строк держатся недолго, а ошибка не откатывает уже сделанное
+        List<BulkStatusUpdateResult> results = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += bulkChunkSize) {
+            results.addAll(bulkUpdater.apply(ids.subList(from, Math.min(from + bulkChunkSize, ids.size())), request.getStatus()));
+        }
+
+        int updated = 0;
+        int unchanged = 0;
+        for (BulkStatusUpdateResult result : results) {
+            switch (result.outcome()) {
+                case UPDATED -> updated++;
+                case UNCHANGED -> unchanged++;
+                default -> {
+                }
+            }
+        }
+        return new BulkStatusUpdateResponse(request.getStatus(), ids.size(), updated, unchanged,
+                ids.size() - updated - unchanged, results);
+    }
+
+    private static AdminOrderFilter bulkFilter(AdminOrderFilter filter) {
+        boolean empty = filter.getStatus() == null && filter.getFrom() == null && filter.getTo() == null
+                && (filter.getEmail() == null || filter.getEmail().isBlank()) && filter.getMinTotal() == null;
+        if (empty) {
+            throw new IllegalArgumentException("Фильтр должен содержать хотя бы одно условие");
+        }
+        return filter;
+    }
+
+    private OrderSalesEvent salesEvent(Order order, OrderStatus previous, OrderStatus status) {
+        // Позиции нужны свёрткам, только если заказ входит в продажи или выходит из них
+        List<OrderSalesLine> lines = OrderSalesEvent.affectsSales(previous, status)
+                ? orderItemRepository.findSalesLinesByOrderId(order.getId())
+                : List.of();
+        return new OrderSalesEvent(order.getId(), order.getOrderDate().toLocalDate(), previous, status, lines);
     }
 
     @Override
-    public List<OrderResponse> getAllOrders() {
-        return orderRepository.findAll().stream()
-                .map(order -> {
-                    BigDecimal total = order.getItems().stream()
-                            .map(item -> item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())))
-                            .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-                    List<OrderItemResponse> items = order.getItems().stream()
-                            .map(item -> new OrderItemResponse(
-                                    item.getProduct().getId(),
-                                    item.getProduct().getName(),
-                                    item.getQuantity(),
-                                    item.getPrice()
-                            ))
-                            .toList();
-
-                    return new OrderResponse(
-                            order.getId(),
-                            order.getStatus(),
-                            order.getOrderDate(),
-                            total,
-                            items,
-                            order.getUser().getEmail(),
-                            order.getPhone(),
-                            order.getAddress(),
-                            order.getComment()
-                    );
-                })
-                .toList();
+    public PageResponse<OrderResponse> searchOrders(AdminOrderFilter filter) {
+        if (filter.getPage() < 0 || filter.getSize() < 1) {
+            throw new IllegalArgumentException("Некорректные параметры страницы");
+        }
+        int size = Math.min(filter.getSize(), maxPageSize);
+        long total = summaryRepository.countByFilter(filter);
+        int totalPages = (int) ((total + size - 1) / size);
+
+        List<OrderResponse> items = (long) filter.getPage() * size >= total
+                ? List.of()
+                : summaryRepository.findByFilter(filter, filter.getPage() * size, size).stream()
+                        .map(readModel::toResponse)
+                        .toList();
+        return new PageResponse<>(items, filter.getPage(), size, total, totalPages);
     }
 
     @Override
     public OrderResponse getOrderForAdmin(Long id) {
-        Order order = orderRepository.findById(id)
+        return findOrder(id)
                 .orElseThrow(() -> new NoSuchElementException("Заказ не найден"));
-
-        BigDecimal totalAmount = order.getItems().stream()
-                .map(item -> item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        List<OrderItemResponse> items = order.getItems().stream()
-                .map(item -> new OrderItemResponse(
-                        item.getProduct().getId(),
-                        item.getProduct().getName(),
-                        item.getQuantity(),
-                        item.getPrice()
-                ))
-                .toList();
-
-        return new OrderResponse(
-                order.getId(),
-                order.getStatus(),
-                order.getOrderDate(),
-                totalAmount,
-                items,
-                order.getUser().getEmail(),
-                order.getPhone(),
-                order.getAddress(),
-                order.getComment()
-        );
     }
 
     @Override
+    @Transactional
     public void delete(Long id) {
-        if (!orderRepository.existsById(id)) {
-            throw new IllegalArgumentException("Заказ не найден");
+        Order order = orderRepository.findForUpdateById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Заказ не найден"));
+        // Остатки отменённого заказа уже возвращены при отмене
+        if (order.getStatus() != OrderStatus.CANCELED) {
+            stock.release(List.of(id));
         }
-        orderRepository.deleteById(id);
+        eventPublisher.publishEvent(salesEvent(order, order.getStatus(), null));
+        orderRepository.delete(order);
+        readModel.delete(id);
+    }
+
+    @Override
+    public ReadModelReport rebuildReadModel() {
+        return readModel.rebuild();
+    }
+
+    @Override
+    public ReadModelReport checkReadModel(boolean repair) {
+        return readModel.check(repair);
     }
 }
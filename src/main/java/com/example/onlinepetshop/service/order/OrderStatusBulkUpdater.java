@@ -0,0 +1,135 @@
+package com.example.onlinepetshop.service.order;
+
+import com.example.onlinepetshop.dto.order.BulkStatusUpdateResult;
+import com.example.onlinepetshop.dto.order.BulkStatusUpdateResult.Outcome;
+import com.example.onlinepetshop.dto.order.OrderEvent;
+import com.example.onlinepetshop.entity.enums.OrderStatus;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Переводит пачку заказов в новый статус одной транзакцией: строки блокируются по возрастанию id,
+// затем один UPDATE на пачку для заказов и один для модели чтения
+@Component
+@RequiredArgsConstructor
+class OrderStatusBulkUpdater {
+
+    private static final Map<OrderStatus, Set<OrderStatus>> TRANSITIONS = new EnumMap<>(Map.of(
+            OrderStatus.CREATED, EnumSet.of(OrderStatus.PENDING, OrderStatus.SHIPPED, OrderStatus.CANCELED),
+            OrderStatus.PENDING, EnumSet.of(OrderStatus.SHIPPED, OrderStatus.CANCELED),
+            OrderStatus.SHIPPED, EnumSet.of(OrderStatus.DELIVERED),
+            OrderStatus.DELIVERED, EnumSet.noneOf(OrderStatus.class),
+            OrderStatus.CANCELED, EnumSet.noneOf(OrderStatus.class)
+    ));
+
+    // queued — заказ принят в очередь, но ещё не обработан: без позиций, резерва и учёта в свёртках
+    private record Row(Long id, OrderStatus status, LocalDate orderDate, BigDecimal total, boolean queued) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final OrderReadModel readModel;
+    private final OrderStock stock;
+    private final ApplicationEventPublisher eventPublisher;
+
+    static boolean allowed(OrderStatus from, OrderStatus to) {
+        return TRANSITIONS.getOrDefault(from, Set.of()).contains(to);
+    }
+
+    // ids должны быть отсортированы по возрастанию — тот же порядок блокировок у всех пачек
+    @Transactional
+    public List<BulkStatusUpdateResult> apply(List<Long> ids, OrderStatus status) {
+        String in = OrderReadModel.placeholders(ids.size());
+        Map<Long, Row> rows = new HashMap<>();
+        // Признак очереди тот же, что у OrderIntakeProcessor: CREATED с нулевой суммой и без позиций
+        jdbcTemplate.query("select id, status, order_date, total, status = 'CREATED' and total = 0"
+                        + " and not exists (select 1 from order_item i where i.order_id = orders.id) as queued"
+                        + " from orders where id in (" + in + ") order by id for update",
+                rs -> {
+                    rows.put(rs.getLong("id"), new Row(rs.getLong("id"), OrderStatus.valueOf(rs.getString("status")),
+                            rs.getTimestamp("order_date").toLocalDateTime().toLocalDate(), rs.getBigDecimal("total"),
+                            rs.getBoolean("queued")));
+                },
+                ids.toArray());
+
+        List<BulkStatusUpdateResult> results = new ArrayList<>(ids.size());
+        List<Row> changed = new ArrayList<>();
+        for (Long id : ids) {
+            Row row = rows.get(id);
+            if (row == null) {
+                results.add(new BulkStatusUpdateResult(id, Outcome.NOT_FOUND, null, "Заказ не найден"));
+            } else if (row.status() == status) {
+                results.add(new BulkStatusUpdateResult(id, Outcome.UNCHANGED, row.status(), null));
+            } else if (row.queued()) {
+                results.add(new BulkStatusUpdateResult(id, Outcome.REJECTED, row.status(),
+                        "Заказ ещё не обработан очередью"));
+            } else if (!allowed(row.status(), status)) {
+                results.add(new BulkStatusUpdateResult(id, Outcome.REJECTED, row.status(),
+                        "Недопустимый переход: " + row.status() + " → " + status));
+            } else {
+                results.add(new BulkStatusUpdateResult(id, Outcome.UPDATED, row.status(), null));
+                changed.add(row);
+            }
+        }
+        if (changed.isEmpty()) {
+            return results;
+        }
+
+        List<Long> changedIds = changed.stream().map(Row::id).toList();
+        List<Object> args = new ArrayList<>(changedIds.size() + 1);
+        args.add(status.name());
+        args.addAll(changedIds);
+        jdbcTemplate.update("update orders set status = ? where id in (" + OrderReadModel.placeholders(changedIds.size()) + ")",
+                args.toArray());
+        readModel.updateStatusAll(changedIds, status);
+        if (status == OrderStatus.CANCELED) {
+            stock.release(changed.stream().filter(row -> OrderSalesEvent.counted(row.status())).map(Row::id).toList());
+        }
+
+        Map<Long, String> emails = new HashMap<>();
+        jdbcTemplate.query("select id, user_email from order_summary where id in (" + OrderReadModel.placeholders(changedIds.size()) + ")",
+                rs -> {
+                    emails.put(rs.getLong("id"), rs.getString("user_email"));
+                },
+                changedIds.toArray());
+        Map<Long, List<OrderSalesLine>> lines = salesLines(changed.stream()
+                .filter(row -> OrderSalesEvent.affectsSales(row.status(), status))
+                .map(Row::id)
+                .toList());
+        for (Row row : changed) {
+            eventPublisher.publishEvent(OrderEvent.statusChanged(row.id(), emails.get(row.id()), status, row.total()));
+            eventPublisher.publishEvent(new OrderSalesEvent(row.id(), row.orderDate(), row.status(), status,
+                    lines.getOrDefault(row.id(), List.of())));
+        }
+        return results;
+    }
+
+    // Позиции нужны свёрткам только для заказов, которые входят в продажи или выходят из них
+    private Map<Long, List<OrderSalesLine>> salesLines(List<Long> orderIds) {
+        Map<Long, List<OrderSalesLine>> lines = new LinkedHashMap<>();
+        if (orderIds.isEmpty()) {
+            return lines;
+        }
+        jdbcTemplate.query("select oi.order_id, p.id, p.category_id, oi.quantity, oi.price from order_item oi " +
+                        "join product p on p.id = oi.product_id where oi.order_id in (" + OrderReadModel.placeholders(orderIds.size()) + ")",
+                rs -> {
+                    Long categoryId = rs.getObject("category_id", Long.class);
+                    lines.computeIfAbsent(rs.getLong("order_id"), id -> new ArrayList<>()).add(new OrderSalesLine(
+                            rs.getLong("id"), categoryId, rs.getInt("quantity"), rs.getBigDecimal("price")));
+                },
+                orderIds.toArray());
+        return lines;
+    }
+}
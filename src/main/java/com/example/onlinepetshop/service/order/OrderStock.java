@@ -0,0 +1,48 @@
+package com.example.onlinepetshop.service.order;
+
+import com.example.onlinepetshop.service.product.StockChangedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+// Возврат на склад остатков, зарезервированных при оформлении: по строкам order_item, в той же транзакции,
+// что и отмена или удаление заказа. Заказ из очереди, ещё не обработанный, строк не имеет — возвращать нечего
+@Component
+@RequiredArgsConstructor
+class OrderStock {
+
+    static final String RELEASE_STOCK_SQL = "update product set stock = stock + ?, updated_at = ? where id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Строки заказов должны быть уже заблокированы вызывающим, иначе параллельная отмена вернула бы остаток дважды
+    void release(Collection<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> releases = new ArrayList<>();
+        List<Long> productIds = new ArrayList<>();
+        // Товары обновляются по возрастанию id — тот же порядок блокировок, что и при резерве
+        jdbcTemplate.query("select product_id, sum(quantity) as quantity from order_item where order_id in ("
+                        + OrderReadModel.placeholders(orderIds.size()) + ") group by product_id order by product_id",
+                rs -> {
+                    productIds.add(rs.getLong("product_id"));
+                    releases.add(new Object[]{rs.getInt("quantity"), now, rs.getLong("product_id")});
+                },
+                orderIds.toArray());
+        if (releases.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(RELEASE_STOCK_SQL, releases);
+        eventPublisher.publishEvent(new StockChangedEvent(productIds));
+    }
+}
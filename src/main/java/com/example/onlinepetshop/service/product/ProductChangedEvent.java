@@ -0,0 +1,19 @@
+package com.example.onlinepetshop.service.product;
+
+import com.example.onlinepetshop.dto.product.ProductResponse;
+import com.example.onlinepetshop.entity.Product;
+
+public record ProductChangedEvent(Long productId, ProductResponse product) {
+
+    public static ProductChangedEvent saved(Product product) {
+        return new ProductChangedEvent(product.getId(), ProductResponse.from(product));
+    }
+
+    public static ProductChangedEvent deleted(Long productId) {
+        return new ProductChangedEvent(productId, null);
+    }
+
+    public boolean isDeleted() {
+        return product == null;
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.onlinepetshop.service.product;
+
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Токен курсора: Base64url от "sort|direction|id|flag|value", порядок сортировки зашит в сам токен.
+// Флаг отличает товар без цены/названия (N) от товара со значением (V): такие товары идут в конце в любом направлении
+public record ProductCursor(ProductSort sort, Sort.Direction direction, Long lastId, Object lastValue) {
+
+    private static final String SEPARATOR = "|";
+    private static final String VALUE = "V";
+    private static final String NO_VALUE = "N";
+
+    public static ProductCursor first(String sort, String direction) {
+        return new ProductCursor(ProductSort.from(sort), parseDirection(direction), null, null);
+    }
+
+    public static ProductCursor resolve(String token, String sort, String direction) {
+        return token == null || token.isBlank() ? first(sort, direction) : decode(token);
+    }
+
+    public static ProductCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 5);
+
+            ProductSort sort = ProductSort.valueOf(parts[0]);
+            Sort.Direction direction = Sort.Direction.valueOf(parts[1]);
+            Long id = Long.valueOf(parts[2]);
+            boolean hasValue = switch (parts[3]) {
+                case VALUE -> true;
+                case NO_VALUE -> false;
+                default -> throw new IllegalArgumentException(parts[3]);
+            };
+            Object value = switch (sort) {
+                case PRICE -> hasValue ? new BigDecimal(parts[4]) : null;
+                case NAME -> hasValue ? parts[4] : null;
+                case ID -> id;
+            };
+
+            return new ProductCursor(sort, direction, id, value);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Некорректный курсор");
+        }
+    }
+
+    public boolean isFirstPage() {
+        return lastId == null;
+    }
+
+    // Последний отданный товар был без ключа сортировки — дальше идут только такие товары
+    public boolean inNullTail() {
+        return !isFirstPage() && sort != ProductSort.ID && lastValue == null;
+    }
+
+    public ScrollPosition position() {
+        if (isFirstPage()) {
+            return ScrollPosition.keyset();
+        }
+        Map<String, Object> keys = new LinkedHashMap<>();
+        if (sort != ProductSort.ID) {
+            keys.put(sort.getProperty(), lastValue);
+        }
+        keys.put(ProductSort.ID.getProperty(), lastId);
+        return ScrollPosition.forward(keys);
+    }
+
+    // Позиция в хвосте товаров без ключа сортировки, они упорядочены только по id
+    public ScrollPosition tailPosition() {
+        return inNullTail()
+                ? ScrollPosition.forward(Map.of(ProductSort.ID.getProperty(), lastId))
+                : ScrollPosition.keyset();
+    }
+
+    public Sort toSort() {
+        Sort sortById = tailSort();
+        return sort == ProductSort.ID ? sortById : Sort.by(direction, sort.getProperty()).and(sortById);
+    }
+
+    public Sort tailSort() {
+        return Sort.by(direction, ProductSort.ID.getProperty());
+    }
+
+    public String next(Long id, BigDecimal price, String name) {
+        String value = switch (sort) {
+            case PRICE -> price == null ? null : price.toPlainString();
+            case NAME -> name;
+            case ID -> "";
+        };
+        String raw = sort.name() + SEPARATOR + direction.name() + SEPARATOR + id + SEPARATOR
+                + (value == null ? NO_VALUE + SEPARATOR : VALUE + SEPARATOR + value);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Sort.Direction parseDirection(String direction) {
+        if (direction == null || direction.isBlank()) {
+            return Sort.Direction.ASC;
+        }
+        return Sort.Direction.fromOptionalString(direction)
+                .orElseThrow(() -> new IllegalArgumentException("Неизвестное направление сортировки: " + direction));
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.onlinepetshop.service.product;
 
+import com.example.onlinepetshop.dto.CursorPageResponse;
 import com.example.onlinepetshop.dto.product.ProductRequest;
 import com.example.onlinepetshop.entity.Category;
 import com.example.onlinepetshop.entity.Product;
@@ -8,10 +9,20 @@ import com.example.onlinepetshop.repository.CartItemRepository;
 import com.example.onlinepetshop.repository.CategoryRepository;
 import com.example.onlinepetshop.repository.ProductRepository;
 import com.example.onlinepetshop.repository.WishlistRepository;
+import com.example.onlinepetshop.service.catalog.CatalogVersion;
+import jakarta.persistence.EntityManagerFactory;
 import lombok.RequiredArgsConstructor;
 import nz.net.ultraq.thymeleaf.layoutdialect.models.extensions.IModelExtensions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.NoSuchElementException;
 
@@ -21,12 +32,19 @@ public class ProductServiceImpl implements ProductService {
 
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CatalogVersion catalogVersion;
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Value("${catalog.page.max-size:100}")
+    private int maxPageSize;
 
     public Product create(ProductRequest request) {
         Category category = categoryRepository.findById(request.getCategoryId())
                 .orElseThrow(() -> new IllegalArgumentException("Категория не найдена"));
 
         Product product = new Product();
+        product.setSku(request.getSku());
         product.setName(request.getName());
         product.setDescription(request.getDescription());
         product.setPrice(request.getPrice());
@@ -34,7 +52,10 @@ public class ProductServiceImpl implements ProductService {
         product.setStock(request.getStock());
         product.setCategory(category);
 
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        eventPublisher.publishEvent(ProductChangedEvent.saved(saved));
+        catalogVersion.bump();
+        return saved;
     }
 
     public Product update(Long id, ProductRequest request) {
@@ -44,6 +65,7 @@ public class ProductServiceImpl implements ProductService {
         Category category = categoryRepository.findById(request.getCategoryId())
                 .orElseThrow(() -> new RuntimeException("Категория не найдена"));
 
+        product.setSku(request.getSku());
         product.setName(request.getName());
         product.setDescription(request.getDescription());
         product.setPrice(request.getPrice());
@@ -51,7 +73,10 @@ public class ProductServiceImpl implements ProductService {
         product.setStock(request.getStock());
         product.setCategory(category);
 
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        eventPublisher.publishEvent(ProductChangedEvent.saved(saved));
+        catalogVersion.bump();
+        return saved;
     }
 
     public void delete(Long id) {
@@ -60,15 +85,30 @@ public class ProductServiceImpl implements ProductService {
         }
 
         productRepository.deleteById(id);
+        eventPublisher.publishEvent(ProductChangedEvent.deleted(id));
+        catalogVersion.bump();
     }
 
-    public List<Product> getAll() {
-        return productRepository.findAll();
+    // Закэшированные копии сбрасываются только после коммита, иначе параллельное чтение вернуло бы в кэш старый остаток
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        event.productIds().forEach(id -> entityManagerFactory.getCache().evict(Product.class, id));
+        eventPublisher.publishEvent(new ProductsStockChangedEvent(productRepository.findCardsByIdIn(event.productIds())));
     }
 
-    @Override
-    public List<Product> getByCategory(Long categoryId) {
-        return productRepository.findByCategoryId(categoryId);
+    public CursorPageResponse<Product> getAll(String cursor, int limit, String sort, String direction) {
+        ProductCursor position = ProductCursor.resolve(cursor, sort, direction);
+        int size = pageSize(limit);
+        return switch (position.sort()) {
+            case PRICE -> scrollNullsLast(position, size,
+                    productRepository::findAllByPriceNotNull, productRepository::findAllByPriceIsNull);
+            case NAME -> scrollNullsLast(position, size,
+                    productRepository::findAllByNameNotNull, productRepository::findAllByNameIsNull);
+            case ID -> {
+                Window<Product> window = productRepository.findAllBy(position.position(), position.toSort(), Limit.of(size));
+                yield toPage(window.getContent(), window.hasNext(), position);
+            }
+        };
     }
 
     public Product getById(Long id) {
@@ -76,11 +116,50 @@ public class ProductServiceImpl implements ProductService {
                 .orElseThrow(() -> new IllegalArgumentException("Товар не найден"));
     }
 
-    public List<Product> searchByName(String name) {
-        return productRepository.findByNameContainingIgnoreCase(name);
-    }
-
     public List<Product> getByCategoryId(Long categoryId) {
         return productRepository.findByCategoryId(categoryId);
     }
+
+    private int pageSize(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Размер страницы должен быть положительным");
+        }
+        return Math.min(limit, maxPageSize);
+    }
+
+    // Сначала товары со значением ключа, затем без него; страница может захватить конец первых и начало вторых
+    private CursorPageResponse<Product> scrollNullsLast(ProductCursor position, int size, Scroller withKey, Scroller withoutKey) {
+        List<Product> items = new ArrayList<>(size);
+        if (!position.inNullTail()) {
+            Window<Product> window = withKey.scroll(position.position(), position.toSort(), Limit.of(size));
+            items.addAll(window.getContent());
+            if (window.hasNext()) {
+                return toPage(items, true, position);
+            }
+        }
+
+        int remaining = size - items.size();
+        Window<Product> tail = withoutKey.scroll(position.tailPosition(), position.tailSort(), Limit.of(Math.max(remaining, 1)));
+        if (remaining == 0) {
+            return toPage(items, !tail.isEmpty(), position);
+        }
+        items.addAll(tail.getContent());
+        return toPage(items, tail.hasNext(), position);
+    }
+
+    private CursorPageResponse<Product> toPage(List<Product> items, boolean hasNext, ProductCursor position) {
+        String nextCursor = hasNext && !items.isEmpty()
+                ? next(position, items.get(items.size() - 1))
+                : null;
+        return new CursorPageResponse<>(items, nextCursor, nextCursor != null);
+    }
+
+    private String next(ProductCursor position, Product last) {
+        return position.next(last.getId(), last.getPrice(), last.getName());
+    }
+
+    @FunctionalInterface
+    private interface Scroller {
+        Window<Product> scroll(ScrollPosition position, Sort sort, Limit limit);
+    }
 }
@@ -0,0 +1,30 @@
+package com.example.onlinepetshop.service.product;
+
+import java.util.Locale;
+
+public enum ProductSort {
+    ID("id"),
+    PRICE("price"),
+    NAME("name");
+
+    private final String property;
+
+    ProductSort(String property) {
+        this.property = property;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public static ProductSort from(String value) {
+        if (value == null || value.isBlank()) {
+            return ID;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Неизвестное поле сортировки: " + value);
+        }
+    }
+}
@@ -0,0 +1,5 @@
+package com.example.onlinepetshop.service.product;
+
+// Массовая запись в обход JPA: индексы и снимок каталога перестраиваются целиком
+public record ProductsImportedEvent(long imported) {
+}
@@ -0,0 +1,10 @@
+package com.example.onlinepetshop.service.product;
+
+import com.example.onlinepetshop.dto.product.ProductResponse;
+
+import java.util.List;
+
+// Карточки товаров, у которых после коммита изменился только остаток; одно событие на пачку.
+// Поиск и подсказки на него не подписаны — название и цена не менялись
+public record ProductsStockChangedEvent(List<ProductResponse> products) {
+}
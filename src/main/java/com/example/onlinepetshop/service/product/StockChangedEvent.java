@@ -0,0 +1,7 @@
+package com.example.onlinepetshop.service.product;
+
+import java.util.Collection;
+
+// Остатки изменены SQL-обновлением в обход JPA; публикуется внутри транзакции, обрабатывается после коммита
+public record StockChangedEvent(Collection<Long> productIds) {
+}
@@ -0,0 +1,8 @@
+package com.example.onlinepetshop.service.product.feed;
+
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+
+public interface ProductExportService {
+    long export(ProductFeedFormat format, LocalDateTime modifiedSince, OutputStream output);
+}
@@ -0,0 +1,176 @@
+package com.example.onlinepetshop.service.product.feed;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+@Service
+@RequiredArgsConstructor
+public class ProductExportServiceImpl implements ProductExportService {
+
+    private static final String SELECT_SQL =
+            "select p.id, p.sku, p.name, p.description, p.price, p.image_url, p.category_id, c.name as category, " +
+            "p.stock, p.updated_at from product p left join category c on c.id = p.category_id";
+    private static final String MODIFIED_SINCE_SQL = " where p.updated_at is null or p.updated_at >= ?";
+    private static final String[] CSV_HEADER = {
+            "id", "sku", "name", "description", "price", "imageUrl", "categoryId", "category", "stock", "updatedAt"
+    };
+
+    private final DataSource dataSource;
+    private final ObjectMapper objectMapper;
+
+    // Для MySQL курсорное чтение включается параметром useCursorFetch=true в URL, иначе драйвер буферизует весь результат
+    @Value("${catalog.export.fetch-size:1000}")
+    private int fetchSize;
+
+    @Override
+    public long export(ProductFeedFormat format, LocalDateTime modifiedSince, OutputStream output) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.setFetchSize(fetchSize);
+
+        try {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+            RowWriter rowWriter = format == ProductFeedFormat.CSV ? new CsvRowWriter(writer) : new NdjsonRowWriter(writer);
+            RowCallbackHandler handler = rs -> {
+                try {
+                    rowWriter.write(rs);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            };
+
+            if (modifiedSince == null) {
+                jdbcTemplate.query(SELECT_SQL + " order by p.id", handler);
+            } else {
+                jdbcTemplate.query(SELECT_SQL + MODIFIED_SINCE_SQL + " order by p.id", handler, Timestamp.valueOf(modifiedSince));
+            }
+            rowWriter.finish();
+            writer.flush();
+            return rowWriter.count;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось записать выгрузку", e);
+        }
+    }
+
+    private abstract static class RowWriter {
+        long count;
+
+        abstract void write(ResultSet rs) throws SQLException, IOException;
+
+        void finish() throws IOException {
+        }
+    }
+
+    private static final class CsvRowWriter extends RowWriter {
+        private final Writer writer;
+
+        CsvRowWriter(Writer writer) throws IOException {
+            this.writer = writer;
+            writer.write(String.join(",", CSV_HEADER));
+            writer.write('\n');
+        }
+
+        @Override
+        void write(ResultSet rs) throws SQLException, IOException {
+            BigDecimal price = rs.getBigDecimal("price");
+            long categoryId = rs.getLong("category_id");
+            boolean hasCategory = !rs.wasNull();
+            Timestamp updatedAt = rs.getTimestamp("updated_at");
+
+            writer.write(Long.toString(rs.getLong("id")));
+            field(rs.getString("sku"));
+            field(rs.getString("name"));
+            field(rs.getString("description"));
+            field(price == null ? null : price.toPlainString());
+            field(rs.getString("image_url"));
+            field(hasCategory ? Long.toString(categoryId) : null);
+            field(rs.getString("category"));
+            field(Integer.toString(rs.getInt("stock")));
+            field(updatedAt == null ? null : updatedAt.toLocalDateTime().toString());
+            writer.write('\n');
+            count++;
+        }
+
+        private void field(String value) throws IOException {
+            writer.write(',');
+            if (value == null) {
+                return;
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+    }
+
+    private final class NdjsonRowWriter extends RowWriter {
+        private final Writer writer;
+        private final JsonGenerator generator;
+
+        NdjsonRowWriter(Writer writer) throws IOException {
+            this.writer = writer;
+            this.generator = objectMapper.getFactory().createGenerator(writer);
+            this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            this.generator.disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+            this.generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        void write(ResultSet rs) throws SQLException, IOException {
+            BigDecimal price = rs.getBigDecimal("price");
+            long categoryId = rs.getLong("category_id");
+            boolean hasCategory = !rs.wasNull();
+            Timestamp updatedAt = rs.getTimestamp("updated_at");
+
+            generator.writeStartObject();
+            generator.writeNumberField("id", rs.getLong("id"));
+            generator.writeStringField("sku", rs.getString("sku"));
+            generator.writeStringField("name", rs.getString("name"));
+            generator.writeStringField("description", rs.getString("description"));
+            if (price == null) {
+                generator.writeNullField("price");
+            } else {
+                generator.writeNumberField("price", price);
+            }
+            generator.writeStringField("imageUrl", rs.getString("image_url"));
+            if (hasCategory) {
+                generator.writeNumberField("categoryId", categoryId);
+            } else {
+                generator.writeNullField("categoryId");
+            }
+            generator.writeStringField("category", rs.getString("category"));
+            generator.writeNumberField("stock", rs.getInt("stock"));
+            generator.writeStringField("updatedAt", updatedAt == null ? null : updatedAt.toLocalDateTime().toString());
+            generator.writeEndObject();
+            generator.flush();
+            writer.write('\n');
+            count++;
+        }
+
+        @Override
+        void finish() throws IOException {
+            generator.close();
+        }
+    }
+}
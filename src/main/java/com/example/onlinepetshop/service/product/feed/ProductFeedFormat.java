@@ -0,0 +1,32 @@
+package com.example.onlinepetshop.service.product.feed;
+
+import org.springframework.http.MediaType;
+
+public enum ProductFeedFormat {
+    CSV,
+    NDJSON;
+
+    public static ProductFeedFormat from(String format) {
+        for (ProductFeedFormat value : values()) {
+            if (value.name().equalsIgnoreCase(format)) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Неподдерживаемый формат: " + format);
+    }
+
+    public MediaType mediaType() {
+        return this == CSV ? MediaType.parseMediaType("text/csv;charset=UTF-8") : MediaType.parseMediaType("application/x-ndjson");
+    }
+
+    public static ProductFeedFormat fromContentType(String contentType) {
+        MediaType type = contentType == null ? null : MediaType.parseMediaType(contentType);
+        if (type != null && type.getSubtype().equalsIgnoreCase("csv")) {
+            return CSV;
+        }
+        if (type != null && (type.getSubtype().equalsIgnoreCase("x-ndjson") || type.getSubtype().equalsIgnoreCase("ndjson"))) {
+            return NDJSON;
+        }
+        throw new IllegalArgumentException("Неподдерживаемый формат импорта: " + contentType);
+    }
+}
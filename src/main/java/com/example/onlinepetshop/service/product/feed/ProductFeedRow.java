@@ -0,0 +1,8 @@
+package com.example.onlinepetshop.service.product.feed;
+
+import java.math.BigDecimal;
+
+// Строка фида после проверки; категория уже сопоставлена с id
+record ProductFeedRow(long line, String sku, String name, String description, BigDecimal price,
+                      String imageUrl, Long categoryId, int stock) {
+}
@@ -0,0 +1,9 @@
+package com.example.onlinepetshop.service.product.feed;
+
+import com.example.onlinepetshop.dto.product.ProductImportReport;
+
+import java.io.InputStream;
+
+public interface ProductImportService {
+    ProductImportReport importFeed(InputStream input, ProductFeedFormat format);
+}
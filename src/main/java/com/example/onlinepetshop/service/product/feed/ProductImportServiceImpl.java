@@ -0,0 +1,294 @@
+package com.example.onlinepetshop.service.product.feed;
+
+import com.example.onlinepetshop.dto.product.ProductImportError;
+import com.example.onlinepetshop.dto.product.ProductImportReport;
+import com.example.onlinepetshop.entity.Category;
+import com.example.onlinepetshop.entity.Product;
+import com.example.onlinepetshop.repository.CategoryRepository;
+import com.example.onlinepetshop.service.catalog.CatalogVersion;
+import com.example.onlinepetshop.service.product.ProductsImportedEvent;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+@Service
+@RequiredArgsConstructor
+public class ProductImportServiceImpl implements ProductImportService {
+
+    private static final String UPSERT_SQL =
+            "insert into product (sku, name, description, price, image_url, category_id, stock, updated_at) " +
+            "values (?, ?, ?, ?, ?, ?, ?, ?) " +
+            "on duplicate key update name = values(name), description = values(description), " +
+            "price = values(price), image_url = values(image_url), category_id = values(category_id), " +
+            "stock = values(stock), updated_at = values(updated_at)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CategoryRepository categoryRepository;
+    private final EntityManagerFactory entityManagerFactory;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CatalogVersion catalogVersion;
+    private final ObjectMapper objectMapper;
+
+    @Value("${catalog.import.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${catalog.import.max-errors:1000}")
+    private int maxErrors;
+
+    @Override
+    public ProductImportReport importFeed(InputStream input, ProductFeedFormat format) {
+        Import run = new Import(categoryLookup());
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            if (format == ProductFeedFormat.CSV) {
+                readCsv(reader, run);
+            } else {
+                readNdjson(reader, run);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось прочитать фид", e);
+        } finally {
+            run.flush();
+            if (run.report.getImported() > 0) {
+                entityManagerFactory.getCache().evict(Product.class);
+                eventPublisher.publishEvent(new ProductsImportedEvent(run.report.getImported()));
+                catalogVersion.bump();
+            }
+        }
+        return run.report;
+    }
+
+    private void readCsv(BufferedReader reader, Import run) throws IOException {
+        CsvRecordReader csv = new CsvRecordReader(reader);
+        List<String> header = csv.next();
+        if (header == null) {
+            return;
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(columnKey(header.get(i)), i);
+        }
+
+        while (true) {
+            List<String> record;
+            try {
+                record = csv.next();
+            } catch (IllegalArgumentException e) {
+                run.reject(csv.recordLine(), null, e.getMessage());
+                return;
+            }
+            if (record == null) {
+                return;
+            }
+            run.accept(csv.recordLine(), column -> {
+                Integer index = columns.get(column);
+                return index == null || index >= record.size() ? null : record.get(index);
+            });
+        }
+    }
+
+    private void readNdjson(BufferedReader reader, Import run) throws IOException {
+        long line = 0;
+        String text;
+        while ((text = reader.readLine()) != null) {
+            line++;
+            if (text.isBlank()) {
+                continue;
+            }
+            JsonNode node;
+            try {
+                node = objectMapper.readTree(text);
+            } catch (IOException e) {
+                run.reject(line, null, "Некорректный JSON");
+                continue;
+            }
+            Map<String, JsonNode> fields = new HashMap<>();
+            node.fields().forEachRemaining(f -> fields.put(columnKey(f.getKey()), f.getValue()));
+            run.accept(line, column -> {
+                JsonNode value = fields.get(column);
+                return value == null || value.isNull() ? null : value.asText();
+            });
+        }
+    }
+
+    // Категории читаются один раз на импорт: по id и по имени без учёта регистра
+    private Map<String, Long> categoryLookup() {
+        Map<String, Long> lookup = new HashMap<>();
+        for (Category category : categoryRepository.findAll()) {
+            lookup.put(category.getId().toString(), category.getId());
+            if (category.getName() != null) {
+                lookup.putIfAbsent(category.getName().trim().toLowerCase(Locale.ROOT), category.getId());
+            }
+        }
+        return lookup;
+    }
+
+    private static String columnKey(String column) {
+        return column.trim().replace("_", "").toLowerCase(Locale.ROOT);
+    }
+
+    private static String trimToNull(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    private final class Import {
+        private final Map<String, Long> categories;
+        private final List<ProductFeedRow> batch = new ArrayList<>(batchSize);
+        private final ProductImportReport report = new ProductImportReport();
+
+        Import(Map<String, Long> categories) {
+            this.categories = categories;
+        }
+
+        void accept(long line, Function<String, String> field) {
+            report.setProcessed(report.getProcessed() + 1);
+            String sku = trimToNull(field.apply("sku"));
+            String error = null;
+            ProductFeedRow row = null;
+            try {
+                row = parse(line, sku, field);
+            } catch (IllegalArgumentException e) {
+                error = e.getMessage();
+            }
+            if (row == null) {
+                fail(line, sku, error);
+                return;
+            }
+            batch.add(row);
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void reject(long line, String sku, String message) {
+            report.setProcessed(report.getProcessed() + 1);
+            fail(line, sku, message);
+        }
+
+        private ProductFeedRow parse(long line, String sku, Function<String, String> field) {
+            if (sku == null) {
+                throw new IllegalArgumentException("Не указан SKU");
+            }
+            if (sku.length() > 64) {
+                throw new IllegalArgumentException("SKU длиннее 64 символов");
+            }
+            String name = trimToNull(field.apply("name"));
+            if (name == null) {
+                throw new IllegalArgumentException("Не указано название");
+            }
+
+            BigDecimal price;
+            try {
+                price = new BigDecimal(field.apply("price").trim());
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Некорректная цена");
+            }
+            if (price.signum() < 0) {
+                throw new IllegalArgumentException("Некорректная цена");
+            }
+
+            int stock;
+            String rawStock = trimToNull(field.apply("stock"));
+            try {
+                stock = rawStock == null ? 0 : Integer.parseInt(rawStock);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Некорректный остаток");
+            }
+            if (stock < 0) {
+                throw new IllegalArgumentException("Некорректный остаток");
+            }
+
+            String category = trimToNull(field.apply("categoryid"));
+            if (category == null) {
+                category = trimToNull(field.apply("category"));
+            }
+            Long categoryId = null;
+            if (category != null) {
+                categoryId = categories.get(category.toLowerCase(Locale.ROOT));
+                if (categoryId == null) {
+                    throw new IllegalArgumentException("Категория не найдена: " + category);
+                }
+            }
+
+            return new ProductFeedRow(line, sku, name, trimToNull(field.apply("description")), price,
+                    trimToNull(field.apply("imageurl")), categoryId, stock);
+        }
+
+        void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                        jdbcTemplate.batchUpdate(UPSERT_SQL, batch, batch.size(), ProductImportServiceImpl::bind));
+                report.setImported(report.getImported() + batch.size());
+            } catch (DataAccessException e) {
+                // Пачка откатилась целиком — повторяем построчно, чтобы отнести ошибку к конкретной строке
+                for (ProductFeedRow row : batch) {
+                    try {
+                        jdbcTemplate.update(UPSERT_SQL, ps -> bind(ps, row));
+                        report.setImported(report.getImported() + 1);
+                    } catch (DataAccessException rowError) {
+                        String cause = String.valueOf(rowError.getMostSpecificCause().getMessage());
+                        fail(row.line(), row.sku(), "Ошибка записи: " + cause.lines().findFirst().orElse(""));
+                    }
+                }
+            }
+            batch.clear();
+        }
+
+        private void fail(long line, String sku, String message) {
+            report.setFailed(report.getFailed() + 1);
+            if (report.getErrors().size() < maxErrors) {
+                report.getErrors().add(new ProductImportError(line, sku, message));
+            } else {
+                report.setErrorsTruncated(true);
+            }
+        }
+    }
+
+    private static void bind(PreparedStatement ps, ProductFeedRow row) throws SQLException {
+        ps.setString(1, row.sku());
+        ps.setString(2, row.name());
+        ps.setString(3, row.description());
+        ps.setBigDecimal(4, row.price());
+        ps.setString(5, row.imageUrl());
+        if (row.categoryId() == null) {
+            ps.setNull(6, Types.BIGINT);
+        } else {
+            ps.setLong(6, row.categoryId());
+        }
+        ps.setInt(7, row.stock());
+        ps.setTimestamp(8, Timestamp.valueOf(LocalDateTime.now()));
+    }
+}
@@ -0,0 +1,328 @@
+package com.example.onlinepetshop.service.product.search;
+
+import com.example.onlinepetshop.dto.product.FacetValue;
+import com.example.onlinepetshop.dto.product.ProductFacetQuery;
+import com.example.onlinepetshop.dto.product.ProductResponse;
+import com.example.onlinepetshop.repository.ProductRepository;
+import com.example.onlinepetshop.service.product.ProductChangedEvent;
+import com.example.onlinepetshop.service.product.ProductsImportedEvent;
+import com.example.onlinepetshop.service.product.ProductsStockChangedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Component
+@RequiredArgsConstructor
+public class ProductFacetIndex {
+
+    private static final BigDecimal[] PRICE_BOUNDS = {
+            BigDecimal.valueOf(500), BigDecimal.valueOf(1000), BigDecimal.valueOf(2000), BigDecimal.valueOf(5000)
+    };
+    private static final int BUILD_BATCH_SIZE = 5000;
+
+    private final ProductRepository productRepository;
+    private final ProductSearchIndex searchIndex;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<ProductChangedEvent> pendingChanges = new ArrayList<>();
+    private Bitmaps bitmaps = new Bitmaps();
+    private boolean rebuilding;
+
+    public record Result(List<Long> productIds, long total, List<FacetValue> categories,
+                         List<FacetValue> priceRanges, List<FacetValue> availability) {
+    }
+
+    @EventListener({ApplicationReadyEvent.class, ProductsImportedEvent.class})
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            rebuilding = true;
+            pendingChanges.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Bitmaps fresh = new Bitmaps();
+        productRepository.scrollAll(BUILD_BATCH_SIZE, batch -> batch.forEach(fresh::put));
+
+        lock.writeLock().lock();
+        try {
+            pendingChanges.forEach(fresh::apply);
+            pendingChanges.clear();
+            bitmaps = fresh;
+            rebuilding = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            bitmaps.apply(event);
+            if (rebuilding) {
+                pendingChanges.add(event);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Остаток влияет на фасет наличия, поэтому пачка изменений остатков применяется под одной блокировкой
+    @EventListener
+    public void onStockChanged(ProductsStockChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            for (ProductResponse product : event.products()) {
+                ProductChangedEvent change = new ProductChangedEvent(product.getId(), product);
+                bitmaps.apply(change);
+                if (rebuilding) {
+                    pendingChanges.add(change);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Result query(ProductFacetQuery query) {
+        List<Long> ranked = query.getQ() == null || query.getQ().isBlank()
+                ? null
+                : searchIndex.search(query.getQ(), query.isFuzzy(), Integer.MAX_VALUE);
+
+        lock.readLock().lock();
+        try {
+            return bitmaps.query(query, ranked);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static int priceBucket(BigDecimal price) {
+        int bucket = 0;
+        while (bucket < PRICE_BOUNDS.length && price.compareTo(PRICE_BOUNDS[bucket]) >= 0) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    static String priceLabel(int bucket) {
+        String from = bucket == 0 ? "0" : PRICE_BOUNDS[bucket - 1].toPlainString();
+        return bucket == PRICE_BOUNDS.length ? from + "+" : from + "-" + PRICE_BOUNDS[bucket].toPlainString();
+    }
+
+    private static final class Bitmaps {
+        private final Map<Long, Integer> docByProduct = new HashMap<>();
+        private final BitSet live = new BitSet();
+        private final BitSet inStock = new BitSet();
+        private final Map<Long, BitSet> byCategory = new TreeMap<>();
+        private final Map<Long, String> categoryNames = new HashMap<>();
+        private final BitSet[] byPriceBucket = new BitSet[PRICE_BOUNDS.length + 1];
+        private long[] productIds = new long[1024];
+        private long[] categoryIds = new long[1024];
+        private BigDecimal[] prices = new BigDecimal[1024];
+        private int docCount;
+
+        Bitmaps() {
+            for (int i = 0; i < byPriceBucket.length; i++) {
+                byPriceBucket[i] = new BitSet();
+            }
+        }
+
+        void apply(ProductChangedEvent event) {
+            if (event.isDeleted()) {
+                Integer doc = docByProduct.remove(event.productId());
+                if (doc != null) {
+                    clear(doc);
+                }
+            } else {
+                put(event.product());
+            }
+        }
+
+        void put(ProductResponse product) {
+            Integer doc = docByProduct.get(product.getId());
+            if (doc == null) {
+                if (docCount == productIds.length) {
+                    productIds = Arrays.copyOf(productIds, docCount * 2);
+                    categoryIds = Arrays.copyOf(categoryIds, docCount * 2);
+                    prices = Arrays.copyOf(prices, docCount * 2);
+                }
+                doc = docCount++;
+                docByProduct.put(product.getId(), doc);
+            } else {
+                clear(doc);
+            }
+
+            productIds[doc] = product.getId();
+            live.set(doc);
+            if (product.getCategory() != null) {
+                categoryIds[doc] = product.getCategory().getId();
+                categoryNames.put(product.getCategory().getId(), product.getCategory().getName());
+                byCategory.computeIfAbsent(categoryIds[doc], id -> new BitSet()).set(doc);
+            }
+            if (product.getPrice() != null) {
+                prices[doc] = product.getPrice();
+                byPriceBucket[priceBucket(product.getPrice())].set(doc);
+            }
+            inStock.set(doc, product.getStock() > 0);
+        }
+
+        private void clear(int doc) {
+            live.clear(doc);
+            inStock.clear(doc);
+            BitSet category = byCategory.get(categoryIds[doc]);
+            if (category != null) {
+                category.clear(doc);
+            }
+            if (prices[doc] != null) {
+                byPriceBucket[priceBucket(prices[doc])].clear(doc);
+                prices[doc] = null;
+            }
+        }
+
+        Result query(ProductFacetQuery query, List<Long> ranked) {
+            BitSet text = null;
+            if (ranked != null) {
+                text = new BitSet(docCount);
+                for (Long id : ranked) {
+                    Integer doc = docByProduct.get(id);
+                    if (doc != null) {
+                        text.set(doc);
+                    }
+                }
+            }
+            BitSet category = categoryFilter(query.getCategoryId());
+            BitSet price = priceFilter(query.getMinPrice(), query.getMaxPrice());
+            BitSet stock = query.getInStock() == null ? null : stockFilter(query.getInStock());
+
+            BitSet matches = intersect(text, category, price, stock);
+
+            BitSet withoutCategory = intersect(text, price, stock);
+            List<FacetValue> categories = new ArrayList<>();
+            byCategory.forEach((id, bits) -> {
+                long count = countAnd(withoutCategory, bits);
+                if (count > 0) {
+                    categories.add(new FacetValue(id.toString(), categoryNames.get(id), count));
+                }
+            });
+
+            BitSet withoutPrice = intersect(text, category, stock);
+            List<FacetValue> priceRanges = new ArrayList<>();
+            for (int bucket = 0; bucket < byPriceBucket.length; bucket++) {
+                String label = priceLabel(bucket);
+                priceRanges.add(new FacetValue(label, label, countAnd(withoutPrice, byPriceBucket[bucket])));
+            }
+
+            BitSet withoutStock = intersect(text, category, price);
+            long available = countAnd(withoutStock, inStock);
+            List<FacetValue> availability = List.of(
+                    new FacetValue("true", "В наличии", available),
+                    new FacetValue("false", "Нет в наличии", withoutStock.cardinality() - available));
+
+            return new Result(page(matches, ranked, query), matches.cardinality(), categories, priceRanges, availability);
+        }
+
+        private List<Long> page(BitSet matches, List<Long> ranked, ProductFacetQuery query) {
+            int offset = Math.max(0, query.getOffset());
+            int limit = Math.max(0, query.getLimit());
+            List<Long> ids = new ArrayList<>(limit);
+            int skipped = 0;
+            if (ranked != null) {
+                for (Long id : ranked) {
+                    Integer doc = docByProduct.get(id);
+                    if (doc == null || !matches.get(doc)) {
+                        continue;
+                    }
+                    if (skipped++ < offset) {
+                        continue;
+                    }
+                    if (ids.size() == limit) {
+                        break;
+                    }
+                    ids.add(id);
+                }
+            } else {
+                for (int doc = matches.nextSetBit(0); doc >= 0 && ids.size() < limit; doc = matches.nextSetBit(doc + 1)) {
+                    if (skipped++ >= offset) {
+                        ids.add(productIds[doc]);
+                    }
+                }
+            }
+            return ids;
+        }
+
+        private BitSet categoryFilter(List<Long> ids) {
+            if (ids == null || ids.isEmpty()) {
+                return null;
+            }
+            BitSet result = new BitSet(docCount);
+            ids.forEach(id -> {
+                BitSet bits = byCategory.get(id);
+                if (bits != null) {
+                    result.or(bits);
+                }
+            });
+            return result;
+        }
+
+        private BitSet priceFilter(BigDecimal min, BigDecimal max) {
+            if (min == null && max == null) {
+                return null;
+            }
+            int from = min == null ? 0 : priceBucket(min);
+            int to = max == null ? byPriceBucket.length - 1 : priceBucket(max);
+            BitSet result = new BitSet(docCount);
+            for (int bucket = from; bucket <= to; bucket++) {
+                result.or(byPriceBucket[bucket]);
+            }
+            for (int bucket : new int[]{from, to}) {
+                BitSet edge = byPriceBucket[bucket];
+                for (int doc = edge.nextSetBit(0); doc >= 0; doc = edge.nextSetBit(doc + 1)) {
+                    if ((min != null && prices[doc].compareTo(min) < 0) || (max != null && prices[doc].compareTo(max) > 0)) {
+                        result.clear(doc);
+                    }
+                }
+            }
+            return result;
+        }
+
+        private BitSet stockFilter(boolean available) {
+            if (available) {
+                return inStock;
+            }
+            BitSet result = (BitSet) live.clone();
+            result.andNot(inStock);
+            return result;
+        }
+
+        private BitSet intersect(BitSet... filters) {
+            BitSet result = (BitSet) live.clone();
+            for (BitSet filter : filters) {
+                if (filter != null) {
+                    result.and(filter);
+                }
+            }
+            return result;
+        }
+
+        private static long countAnd(BitSet base, BitSet other) {
+            BitSet copy = (BitSet) base.clone();
+            copy.and(other);
+            return copy.cardinality();
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package com.example.onlinepetshop.service.product.search;
+
+import com.example.onlinepetshop.dto.product.ProductResponse;
+import com.example.onlinepetshop.repository.ProductRepository;
+import com.example.onlinepetshop.service.product.ProductChangedEvent;
+import com.example.onlinepetshop.service.product.ProductsImportedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Component
+@RequiredArgsConstructor
+public class ProductSearchIndex {
+
+    private static final int NAME_BOOST = 3;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int BUILD_BATCH_SIZE = 5000;
+    private static final int COMPACTION_MIN_DOCS = 1024;
+
+    private final ProductRepository productRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<ProductChangedEvent> pendingChanges = new ArrayList<>();
+    private IndexData data = new IndexData();
+    private boolean rebuilding;
+    private volatile boolean ready;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener({ApplicationReadyEvent.class, ProductsImportedEvent.class})
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            rebuilding = true;
+            pendingChanges.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        IndexData fresh = new IndexData();
+        productRepository.scrollAll(BUILD_BATCH_SIZE, batch -> batch.forEach(fresh::add));
+
+        lock.writeLock().lock();
+        try {
+            pendingChanges.forEach(fresh::apply);
+            pendingChanges.clear();
+            data = fresh;
+            rebuilding = false;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            data.apply(event);
+            if (rebuilding) {
+                pendingChanges.add(event);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<Long> search(String query, boolean fuzzy, int limit) {
+        List<String> tokens = new ArrayList<>(new LinkedHashSet<>(TextNormalizer.tokenize(query)));
+        if (tokens.isEmpty() || limit < 1) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            return data.search(tokens, fuzzy, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static int maxEdits(String token) {
+        if (token.length() <= 3) {
+            return 0;
+        }
+        return token.length() <= 6 ? 1 : 2;
+    }
+
+    static int boundedEditDistance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        int[] beforePrev = new int[b.length() + 1];
+        int[] prev = new int[b.length() + 1];
+        int[] curr = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            prev[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            curr[0] = i;
+            int rowMin = curr[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                curr[j] = Math.min(Math.min(curr[j - 1] + 1, prev[j] + 1), prev[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    curr[j] = Math.min(curr[j], beforePrev[j - 2] + 1);
+                }
+                rowMin = Math.min(rowMin, curr[j]);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] tmp = beforePrev;
+            beforePrev = prev;
+            prev = curr;
+            curr = tmp;
+        }
+        return prev[b.length()];
+    }
+
+    private static final class Postings {
+        private int[] docs = new int[4];
+        private int[] weights = new int[4];
+        private int size;
+
+        void add(int doc, int weight) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            docs[size] = doc;
+            weights[size] = weight;
+            size++;
+        }
+    }
+
+    private record Expansion(Postings postings, double factor) {
+    }
+
+    private static final class IndexData {
+        private final Map<String, Postings> postings = new HashMap<>();
+        private final Map<Integer, List<String>> termsByLength = new HashMap<>();
+        private final Map<Long, Integer> docByProduct = new HashMap<>();
+        private final BitSet deleted = new BitSet();
+        private long[] productIds = new long[1024];
+        private int[] docLengths = new int[1024];
+        private int docCount;
+        private int liveDocs;
+        private long totalLength;
+
+        void apply(ProductChangedEvent event) {
+            remove(event.productId());
+            if (!event.isDeleted()) {
+                add(event.product());
+            }
+        }
+
+        void add(ProductResponse product) {
+            List<String> nameTokens = TextNormalizer.tokenize(product.getName());
+            List<String> descriptionTokens = TextNormalizer.tokenize(product.getDescription());
+
+            Map<String, Integer> weights = new HashMap<>();
+            nameTokens.forEach(t -> weights.merge(t, NAME_BOOST, Integer::sum));
+            descriptionTokens.forEach(t -> weights.merge(t, 1, Integer::sum));
+
+            if (docCount == productIds.length) {
+                productIds = Arrays.copyOf(productIds, docCount * 2);
+                docLengths = Arrays.copyOf(docLengths, docCount * 2);
+            }
+            int doc = docCount++;
+            int length = nameTokens.size() + descriptionTokens.size();
+            productIds[doc] = product.getId();
+            docLengths[doc] = length;
+            docByProduct.put(product.getId(), doc);
+            liveDocs++;
+            totalLength += length;
+
+            weights.forEach((term, weight) -> postings.computeIfAbsent(term, t -> {
+                termsByLength.computeIfAbsent(t.length(), l -> new ArrayList<>()).add(t);
+                return new Postings();
+            }).add(doc, weight));
+        }
+
+        void remove(Long productId) {
+            Integer doc = docByProduct.remove(productId);
+            if (doc == null) {
+                return;
+            }
+            deleted.set(doc);
+            liveDocs--;
+            totalLength -= docLengths[doc];
+            if (docCount >= COMPACTION_MIN_DOCS && deleted.cardinality() > liveDocs) {
+                compact();
+            }
+        }
+
+        List<Long> search(List<String> tokens, boolean fuzzy, int limit) {
+            List<List<Expansion>> groups = new ArrayList<>();
+            for (String token : tokens) {
+                List<Expansion> expansions = expand(token, fuzzy);
+                if (expansions.isEmpty()) {
+                    return List.of();
+                }
+                groups.add(expansions);
+            }
+            groups.sort(Comparator.comparingInt(g -> g.stream().mapToInt(e -> e.postings().size).sum()));
+
+            double avgLength = liveDocs == 0 ? 1 : Math.max(1.0, (double) totalLength / liveDocs);
+            Map<Integer, Double> scores = null;
+            for (List<Expansion> group : groups) {
+                Map<Integer, Double> groupScores = new HashMap<>();
+                for (Expansion expansion : group) {
+                    Postings p = expansion.postings();
+                    double idf = Math.log(1 + (liveDocs - p.size + 0.5) / (p.size + 0.5));
+                    for (int i = 0; i < p.size; i++) {
+                        int doc = p.docs[i];
+                        if (deleted.get(doc) || (scores != null && !scores.containsKey(doc))) {
+                            continue;
+                        }
+                        double tf = p.weights[i];
+                        double norm = K1 * (1 - B + B * docLengths[doc] / avgLength);
+                        double score = expansion.factor() * idf * tf * (K1 + 1) / (tf + norm);
+                        groupScores.merge(doc, score, Math::max);
+                    }
+                }
+                if (scores != null) {
+                    Map<Integer, Double> previous = scores;
+                    groupScores.replaceAll((doc, score) -> score + previous.get(doc));
+                }
+                scores = groupScores;
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+
+            PriorityQueue<Map.Entry<Integer, Double>> top = new PriorityQueue<>(Map.Entry.comparingByValue());
+            for (Map.Entry<Integer, Double> entry : scores.entrySet()) {
+                top.offer(entry);
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+            Long[] result = new Long[top.size()];
+            for (int i = result.length - 1; i >= 0; i--) {
+                result[i] = productIds[top.poll().getKey()];
+            }
+            return Arrays.asList(result);
+        }
+
+        private List<Expansion> expand(String token, boolean fuzzy) {
+            List<Expansion> expansions = new ArrayList<>();
+            Postings exact = postings.get(token);
+            if (exact != null) {
+                expansions.add(new Expansion(exact, 1.0));
+            }
+            int max = fuzzy ? maxEdits(token) : 0;
+            for (int length = token.length() - max; max > 0 && length <= token.length() + max; length++) {
+                for (String term : termsByLength.getOrDefault(length, List.of())) {
+                    int distance = boundedEditDistance(token, term, max);
+                    if (distance > 0 && distance <= max) {
+                        expansions.add(new Expansion(postings.get(term), 1.0 / (1 + distance)));
+                    }
+                }
+            }
+            return expansions;
+        }
+
+        private void compact() {
+            int[] remap = new int[docCount];
+            int next = 0;
+            for (int doc = 0; doc < docCount; doc++) {
+                if (deleted.get(doc)) {
+                    remap[doc] = -1;
+                } else {
+                    remap[doc] = next;
+                    productIds[next] = productIds[doc];
+                    docLengths[next] = docLengths[doc];
+                    docByProduct.put(productIds[next], next);
+                    next++;
+                }
+            }
+
+            postings.values().removeIf(p -> {
+                int size = 0;
+                for (int i = 0; i < p.size; i++) {
+                    int doc = remap[p.docs[i]];
+                    if (doc >= 0) {
+                        p.docs[size] = doc;
+                        p.weights[size] = p.weights[i];
+                        size++;
+                    }
+                }
+                p.size = size;
+                return size == 0;
+            });
+            termsByLength.values().forEach(terms -> terms.removeIf(t -> !postings.containsKey(t)));
+
+            docCount = next;
+            deleted.clear();
+        }
+    }
+}
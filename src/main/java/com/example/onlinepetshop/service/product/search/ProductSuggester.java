@@ -0,0 +1,375 @@
+package com.example.onlinepetshop.service.product.search;
+
+import com.example.onlinepetshop.dto.product.ProductSuggestion;
+import com.example.onlinepetshop.repository.ProductRepository;
+import com.example.onlinepetshop.repository.ProductSalesDailyRepository;
+import com.example.onlinepetshop.service.product.ProductChangedEvent;
+import com.example.onlinepetshop.service.product.ProductsImportedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Component
+@RequiredArgsConstructor
+public class ProductSuggester {
+
+    public static final int MAX_SUGGESTIONS = 10;
+    private static final int MAX_KEY_LENGTH = 64;
+    private static final int BUILD_BATCH_SIZE = 5000;
+    private static final int COMPACTION_MIN_ENTRIES = 1024;
+
+    private final ProductRepository productRepository;
+    private final ProductSalesDailyRepository productSalesRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<ProductChangedEvent> pendingChanges = new ArrayList<>();
+    private Map<Long, Long> unitsSold = new HashMap<>();
+    private Trie trie = new Trie();
+    private boolean rebuilding;
+
+    @EventListener({ApplicationReadyEvent.class, ProductsImportedEvent.class})
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            rebuilding = true;
+            pendingChanges.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Map<Long, Long> units = loadUnitsSold();
+
+        Trie fresh = new Trie();
+        productRepository.scrollAll(BUILD_BATCH_SIZE, batch -> batch.forEach(p ->
+                fresh.add(p.getId(), p.getName(), units.getOrDefault(p.getId(), 0L))));
+
+        lock.writeLock().lock();
+        try {
+            unitsSold = units;
+            trie = fresh;
+            pendingChanges.forEach(this::apply);
+            pendingChanges.clear();
+            rebuilding = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            apply(event);
+            if (rebuilding) {
+                pendingChanges.add(event);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Популярность берётся из свёртки продаж и пересчитывается только у товаров, чьи продажи изменились
+    @Scheduled(fixedDelayString = "${catalog.suggest.popularity-refresh:PT5M}",
+            initialDelayString = "${catalog.suggest.popularity-refresh:PT5M}")
+    public void refreshPopularity() {
+        Map<Long, Long> units = loadUnitsSold();
+
+        lock.writeLock().lock();
+        try {
+            if (rebuilding) {
+                return;
+            }
+            Set<Long> changed = new HashSet<>(unitsSold.keySet());
+            changed.addAll(units.keySet());
+            changed.removeIf(id -> unitsSold.getOrDefault(id, 0L).equals(units.getOrDefault(id, 0L)));
+            unitsSold = units;
+            changed.forEach(id -> trie.rescore(id, units.getOrDefault(id, 0L)));
+            if (trie.shouldCompact()) {
+                trie = trie.compacted();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<ProductSuggestion> suggest(String prefix, int limit) {
+        String key = toKey(prefix);
+        if (key.isEmpty() || limit < 1) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            return trie.top(key, Math.min(limit, MAX_SUGGESTIONS));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void apply(ProductChangedEvent event) {
+        trie.remove(event.productId());
+        if (!event.isDeleted()) {
+            trie.add(event.productId(), event.product().getName(), unitsSold.getOrDefault(event.productId(), 0L));
+        }
+        if (trie.shouldCompact()) {
+            trie = trie.compacted();
+        }
+    }
+
+    private Map<Long, Long> loadUnitsSold() {
+        Map<Long, Long> units = new HashMap<>();
+        productSalesRepository.sumUnitsByProduct().forEach(u -> units.put(u.getProductId(), u.getUnits()));
+        return units;
+    }
+
+    static String toKey(String text) {
+        String key = String.join(" ", TextNormalizer.normalize(text).trim().split("\\s+"));
+        return key.length() > MAX_KEY_LENGTH ? key.substring(0, MAX_KEY_LENGTH) : key;
+    }
+
+    // Узлы и списки top-k лежат в плоских массивах: индекс узла — смещение, top-k узла n — top[n*K .. n*K+K)
+    private static final class Trie {
+        private static final int K = MAX_SUGGESTIONS;
+        private static final int NONE = -1;
+
+        private char[] labels = new char[1024];
+        private int[] firstChild = new int[1024];
+        private int[] nextSibling = new int[1024];
+        private int[] firstLink = new int[1024];
+        private int[] top = new int[1024 * K];
+        private int nodeCount;
+
+        private int[] linkEntry = new int[1024];
+        private int[] linkNext = new int[1024];
+        private int linkCount;
+
+        private long[] entryProduct = new long[256];
+        private long[] entryScore = new long[256];
+        private String[] entryName = new String[256];
+        private final BitSet deadEntries = new BitSet();
+        private final Map<Long, Integer> entryByProduct = new HashMap<>();
+        private int entryCount;
+        private int liveEntries;
+
+        Trie() {
+            newNode('\0');
+        }
+
+        void add(long productId, String name, long score) {
+            String key = toKey(name);
+            if (key.isEmpty()) {
+                return;
+            }
+            if (entryCount == entryProduct.length) {
+                entryProduct = Arrays.copyOf(entryProduct, entryCount * 2);
+                entryScore = Arrays.copyOf(entryScore, entryCount * 2);
+                entryName = Arrays.copyOf(entryName, entryCount * 2);
+            }
+            int entry = entryCount++;
+            entryProduct[entry] = productId;
+            entryScore[entry] = score;
+            entryName[entry] = name;
+            entryByProduct.put(productId, entry);
+            liveEntries++;
+
+            int[] path = new int[key.length() + 1];
+            for (int start = 0; start < key.length(); start++) {
+                if (start > 0 && key.charAt(start - 1) != ' ') {
+                    continue;
+                }
+                int depth = walk(key, start, path, true);
+                link(path[depth], entry);
+                for (int i = 0; i <= depth; i++) {
+                    offer(path[i], entry);
+                }
+            }
+        }
+
+        void remove(long productId) {
+            Integer entry = entryByProduct.remove(productId);
+            if (entry == null) {
+                return;
+            }
+            deadEntries.set(entry);
+            liveEntries--;
+
+            String key = toKey(entryName[entry]);
+            int[] path = new int[key.length() + 1];
+            for (int start = 0; start < key.length(); start++) {
+                if (start > 0 && key.charAt(start - 1) != ' ') {
+                    continue;
+                }
+                int depth = walk(key, start, path, false);
+                unlink(path[depth], entry);
+                for (int i = depth; i >= 0; i--) {
+                    recompute(path[i]);
+                }
+            }
+        }
+
+        void rescore(long productId, long score) {
+            Integer entry = entryByProduct.get(productId);
+            if (entry != null && entryScore[entry] != score) {
+                String name = entryName[entry];
+                remove(productId);
+                add(productId, name, score);
+            }
+        }
+
+        List<ProductSuggestion> top(String key, int limit) {
+            int[] path = new int[key.length() + 1];
+            int depth = walk(key, 0, path, false);
+            if (depth < 0) {
+                return List.of();
+            }
+            int base = path[depth] * K;
+            List<ProductSuggestion> result = new ArrayList<>(limit);
+            for (int i = 0; i < limit && top[base + i] != NONE; i++) {
+                int entry = top[base + i];
+                result.add(new ProductSuggestion(entryProduct[entry], entryName[entry]));
+            }
+            return result;
+        }
+
+        boolean shouldCompact() {
+            return entryCount >= COMPACTION_MIN_ENTRIES && deadEntries.cardinality() > liveEntries;
+        }
+
+        Trie compacted() {
+            Trie fresh = new Trie();
+            for (int entry = 0; entry < entryCount; entry++) {
+                if (!deadEntries.get(entry)) {
+                    fresh.add(entryProduct[entry], entryName[entry], entryScore[entry]);
+                }
+            }
+            return fresh;
+        }
+
+        private int walk(String key, int start, int[] path, boolean create) {
+            int node = 0;
+            path[0] = node;
+            for (int i = start; i < key.length(); i++) {
+                node = child(node, key.charAt(i), create);
+                if (node == NONE) {
+                    return NONE;
+                }
+                path[i - start + 1] = node;
+            }
+            return key.length() - start;
+        }
+
+        private int child(int node, char label, boolean create) {
+            for (int c = firstChild[node]; c != NONE; c = nextSibling[c]) {
+                if (labels[c] == label) {
+                    return c;
+                }
+            }
+            if (!create) {
+                return NONE;
+            }
+            int created = newNode(label);
+            nextSibling[created] = firstChild[node];
+            firstChild[node] = created;
+            return created;
+        }
+
+        private int newNode(char label) {
+            if (nodeCount == labels.length) {
+                int capacity = nodeCount * 2;
+                labels = Arrays.copyOf(labels, capacity);
+                firstChild = Arrays.copyOf(firstChild, capacity);
+                nextSibling = Arrays.copyOf(nextSibling, capacity);
+                firstLink = Arrays.copyOf(firstLink, capacity);
+                top = Arrays.copyOf(top, capacity * K);
+            }
+            int node = nodeCount++;
+            labels[node] = label;
+            firstChild[node] = NONE;
+            nextSibling[node] = NONE;
+            firstLink[node] = NONE;
+            Arrays.fill(top, node * K, node * K + K, NONE);
+            return node;
+        }
+
+        private void link(int node, int entry) {
+            if (linkCount == linkEntry.length) {
+                linkEntry = Arrays.copyOf(linkEntry, linkCount * 2);
+                linkNext = Arrays.copyOf(linkNext, linkCount * 2);
+            }
+            int link = linkCount++;
+            linkEntry[link] = entry;
+            linkNext[link] = firstLink[node];
+            firstLink[node] = link;
+        }
+
+        private void unlink(int node, int entry) {
+            int previous = NONE;
+            for (int link = firstLink[node]; link != NONE; previous = link, link = linkNext[link]) {
+                if (linkEntry[link] == entry) {
+                    if (previous == NONE) {
+                        firstLink[node] = linkNext[link];
+                    } else {
+                        linkNext[previous] = linkNext[link];
+                    }
+                    return;
+                }
+            }
+        }
+
+        private void recompute(int node) {
+            int base = node * K;
+            Arrays.fill(top, base, base + K, NONE);
+            for (int link = firstLink[node]; link != NONE; link = linkNext[link]) {
+                offer(node, linkEntry[link]);
+            }
+            for (int c = firstChild[node]; c != NONE; c = nextSibling[c]) {
+                for (int i = 0; i < K && top[c * K + i] != NONE; i++) {
+                    offer(node, top[c * K + i]);
+                }
+            }
+        }
+
+        private void offer(int node, int entry) {
+            int base = node * K;
+            int position = K;
+            for (int i = 0; i < K; i++) {
+                int current = top[base + i];
+                if (current == entry) {
+                    return;
+                }
+                if (position == K && (current == NONE || ranksHigher(entry, current))) {
+                    position = i;
+                }
+            }
+            if (position == K) {
+                return;
+            }
+            int end = base + K - 1;
+            System.arraycopy(top, base + position, top, base + position + 1, end - (base + position));
+            top[base + position] = entry;
+        }
+
+        private boolean ranksHigher(int a, int b) {
+            if (entryScore[a] != entryScore[b]) {
+                return entryScore[a] > entryScore[b];
+            }
+            if (entryName[a].length() != entryName[b].length()) {
+                return entryName[a].length() < entryName[b].length();
+            }
+            return entryProduct[a] < entryProduct[b];
+        }
+    }
+}
@@ -0,0 +1,5 @@
+package com.example.onlinepetshop.service.user;
+
+// Публикуется внутри транзакции смены профиля; подписчики, кэширующие пользователя по email, сбрасывают старый ключ
+public record UserEmailChangedEvent(Long userId, String previousEmail, String email) {
+}
@@ -1,22 +1,24 @@
 package com.example.onlinepetshop.service.user;
 
-import com.example.onlinepetshop.dto.order.OrderResponse;
 import com.example.onlinepetshop.dto.UpdateProfileRequest;
 import com.example.onlinepetshop.dto.UserResponse;
 import com.example.onlinepetshop.entity.User;
 import com.example.onlinepetshop.repository.UserRepository;
+import com.example.onlinepetshop.service.order.OrderReadModel;
+import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
-
 @Service
 @RequiredArgsConstructor
 public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
+    private final OrderReadModel orderReadModel;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public UserResponse getCurrentUser(Authentication auth) {
@@ -25,21 +27,21 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
-    public List<OrderResponse> getUserOrders(Authentication auth) {
-        User user = getUser(auth);
-        return user.getOrders().stream()
-                .map(order -> new OrderResponse(order.getId(), order.getStatus(), order.getOrderDate(), order.getTotal()))
-                .toList();
-    }
-
-    @Override
+    @Transactional
     public void updateProfile(Authentication auth, UpdateProfileRequest request) {
         User user = getUser(auth);
+        String previousEmail = user.getEmail();
+        boolean emailChanged = !previousEmail.equals(request.getEmail());
         user.setFullName(request.getFullName());
         user.setEmail(request.getEmail());
         user.setAddress(request.getAddress());
         user.setPhone(request.getPhone());
         userRepository.save(user);
+        if (emailChanged) {
+            // История заказов в модели чтения и в архиве ищется по email
+            orderReadModel.renameUser(user.getId(), user.getEmail());
+            eventPublisher.publishEvent(new UserEmailChangedEvent(user.getId(), previousEmail, user.getEmail()));
+        }
     }
 
     private User getUser(Authentication auth) {
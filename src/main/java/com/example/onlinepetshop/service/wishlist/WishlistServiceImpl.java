@@ -1,5 +1,6 @@
 package com.example.onlinepetshop.service.wishlist;
 
+import com.example.onlinepetshop.dto.product.ProductResponse;
 import com.example.onlinepetshop.entity.Product;
 import com.example.onlinepetshop.entity.User;
 import com.example.onlinepetshop.entity.Wishlist;
@@ -53,11 +54,8 @@ public class WishlistServiceImpl implements WishlistService {
     }
 
     @Override
-    public List<Product> getProductsInWishlist() {
-        Wishlist wishlist = getOrCreateWishlistForCurrentUser();
-        return wishlist.getItems().stream()
-                .map(WishlistItem::getProduct)
-                .toList();
+    public List<ProductResponse> getProductsInWishlist() {
+        return wishlistRepository.findProductsByUserEmail(getCurrentUserEmail());
     }
 
     @Override
@@ -0,0 +1,157 @@
+package com.example.onlinepetshop.service.order;
+
+import com.example.onlinepetshop.dto.cart.CartItemDto;
+import com.example.onlinepetshop.dto.order.CreateOrderRequest;
+import com.example.onlinepetshop.dto.order.OrderResponse;
+import com.example.onlinepetshop.entity.Category;
+import com.example.onlinepetshop.entity.Product;
+import com.example.onlinepetshop.entity.User;
+import com.example.onlinepetshop.entity.enums.OrderStatus;
+import com.example.onlinepetshop.entity.enums.Role;
+import com.example.onlinepetshop.repository.CategoryRepository;
+import com.example.onlinepetshop.repository.ProductRepository;
+import com.example.onlinepetshop.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class OrderStockConcurrencyTest {
+
+    private static final int STOCK = 25;
+    private static final int THREADS = 16;
+    private static final int ORDERS_PER_THREAD = 10;
+
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void concurrentPlacementNeverTakesStockBelowZero() throws Exception {
+        Long productId = product(STOCK);
+        String email = user();
+
+        AtomicInteger sold = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicInteger minStock = new AtomicInteger(STOCK);
+        AtomicBoolean running = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+
+        // Остаток читается мимо кэша второго уровня, пока заказы идут
+        Thread sampler = new Thread(() -> {
+            while (running.get()) {
+                minStock.accumulateAndGet(stock(productId), Math::min);
+            }
+        });
+        sampler.start();
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < ORDERS_PER_THREAD; i++) {
+                    int quantity = ThreadLocalRandom.current().nextInt(1, 4);
+                    try {
+                        orderService.placeOrder(email, request(productId, quantity));
+                        sold.addAndGet(quantity);
+                    } catch (IllegalArgumentException e) {
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+        running.set(false);
+        sampler.join();
+
+        int remaining = stock(productId);
+        assertThat(minStock.get()).isGreaterThanOrEqualTo(0);
+        assertThat(remaining).isGreaterThanOrEqualTo(0);
+        assertThat(sold.get()).isEqualTo(STOCK - remaining);
+        assertThat(orderedUnits(productId)).isEqualTo(sold.get());
+        assertThat(rejected.get()).isPositive();
+    }
+
+    @Test
+    void cancelAndDeleteReturnReservedStock() {
+        Long productId = product(10);
+        String email = user();
+
+        OrderResponse canceled = orderService.placeOrder(email, request(productId, 3));
+        OrderResponse deleted = orderService.placeOrder(email, request(productId, 4));
+        assertThat(stock(productId)).isEqualTo(3);
+
+        orderService.updateOrderStatus(canceled.getId(), OrderStatus.CANCELED);
+        assertThat(stock(productId)).isEqualTo(6);
+
+        // Отменённый заказ уже вернул остаток: удаление не должно вернуть его второй раз
+        orderService.delete(canceled.getId());
+        assertThat(stock(productId)).isEqualTo(6);
+
+        orderService.delete(deleted.getId());
+        assertThat(stock(productId)).isEqualTo(10);
+    }
+
+    private Long product(int stock) {
+        Category category = new Category();
+        category.setName("Категория " + UUID.randomUUID());
+        categoryRepository.save(category);
+
+        Product product = new Product();
+        product.setName("Товар " + UUID.randomUUID());
+        product.setPrice(new BigDecimal("100.00"));
+        product.setStock(stock);
+        product.setCategory(category);
+        return productRepository.save(product).getId();
+    }
+
+    private String user() {
+        User user = new User();
+        user.setEmail(UUID.randomUUID() + "@test.ru");
+        user.setPassword("-");
+        user.setRole(Role.USER);
+        return userRepository.save(user).getEmail();
+    }
+
+    private int stock(Long productId) {
+        return jdbcTemplate.queryForObject("select stock from product where id = ?", Integer.class, productId);
+    }
+
+    private int orderedUnits(Long productId) {
+        return jdbcTemplate.queryForObject("select coalesce(sum(quantity), 0) from order_item where product_id = ?",
+                Integer.class, productId);
+    }
+
+    private static CreateOrderRequest request(Long productId, int quantity) {
+        return new CreateOrderRequest(List.of(new CartItemDto(productId, quantity)), "+7900", "Москва", null);
+    }
+}